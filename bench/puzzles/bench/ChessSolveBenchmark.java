@@ -0,0 +1,22 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import puzzles.chess.model.ChessConfig;
+
+import java.io.IOException;
+
+/**
+ * Solves every puzzle in data/chess
+ * @author Christopher Rose
+ */
+public class ChessSolveBenchmark extends SolveBenchmark {
+    @Param({"chess-0", "chess-1", "chess-2", "chess-3", "chess-4",
+            "chess-5", "chess-6", "chess-7", "chess-8", "chess-9"})
+    public String puzzle;
+
+    @Setup
+    public void setup() throws IOException {
+        prepare(new ChessConfig("data/chess/" + puzzle + ".txt"));
+    }
+}
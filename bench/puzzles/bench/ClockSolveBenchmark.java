@@ -0,0 +1,22 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import puzzles.clock.ClockConfig;
+
+/**
+ * Solves the clock puzzles that have reference output in output/clock
+ * @author Christopher Rose
+ */
+public class ClockSolveBenchmark extends SolveBenchmark {
+    /** hours, start and end, as given to the Clock main */
+    @Param({"12 2 11", "12 2 15", "12 5 5", "24 22 9", "100 90 30", "1000 42 722"})
+    public String arguments;
+
+    @Setup
+    public void setup(){
+        String[] args = arguments.split(" ");
+        int start = Integer.parseInt(args[1]);
+        prepare(new ClockConfig(start, Integer.parseInt(args[2]), start, Integer.parseInt(args[0])));
+    }
+}
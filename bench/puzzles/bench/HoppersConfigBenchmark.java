@@ -0,0 +1,76 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the hoppers config operations a search does over and over: generating a frog's
+ * moves, and hashing and comparing configs in the visited set
+ * @author Christopher Rose
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoppersConfigBenchmark {
+    @Param({"hoppers-4", "hoppers-8"})
+    public String puzzle;
+
+    private HoppersConfig config;
+    /** a different object equal to config */
+    private HoppersConfig copy;
+    /** row and column of every frog in config */
+    private int[][] frogs;
+
+    @Setup
+    public void setup() throws IOException {
+        config = new HoppersConfig("data/hoppers/" + puzzle + ".txt");
+        copy = new HoppersConfig("data/hoppers/" + puzzle + ".txt");
+        int count = 0;
+        int[][] found = new int[config.getRows() * config.getColumns()][];
+        for (int r = 0; r < config.getRows(); r++){
+            for (int c = 0; c < config.getColumns(); c++){
+                if (config.isFrog(r, c)){
+                    found[count++] = new int[] {r, c};
+                }
+            }
+        }
+        frogs = Arrays.copyOf(found, count);
+    }
+
+    /**
+     * generates the moves of every frog on the board
+     * @param blackhole consumes the moves
+     */
+    @Benchmark
+    public void getMoves(Blackhole blackhole){
+        for (int[] frog: frogs){
+            blackhole.consume(config.getMoves(frog[0], frog[1]));
+        }
+    }
+
+    /**
+     * hashes a config, as the visited set does for every generated config
+     * @return the hash
+     */
+    @Benchmark
+    public int hashCodeOf(){
+        return config.hashCode();
+    }
+
+    /**
+     * compares two equal configs, as the visited set does when it finds a duplicate
+     * @return true
+     */
+    @Benchmark
+    public boolean equalsCopy(){
+        return config.equals(copy);
+    }
+}
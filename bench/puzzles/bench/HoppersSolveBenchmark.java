@@ -0,0 +1,22 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import puzzles.hoppers.model.HoppersConfig;
+
+import java.io.IOException;
+
+/**
+ * Solves every puzzle in data/hoppers
+ * @author Christopher Rose
+ */
+public class HoppersSolveBenchmark extends SolveBenchmark {
+    @Param({"hoppers-0", "hoppers-1", "hoppers-2", "hoppers-3", "hoppers-4",
+            "hoppers-5", "hoppers-6", "hoppers-7", "hoppers-8", "hoppers-9"})
+    public String puzzle;
+
+    @Setup
+    public void setup() throws IOException {
+        prepare(new HoppersConfig("data/hoppers/" + puzzle + ".txt"));
+    }
+}
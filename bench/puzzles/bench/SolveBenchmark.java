@@ -0,0 +1,49 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.*;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverOptions;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end solve benchmarks. Each subclass builds the start config of one puzzle type and
+ * the solver is made the same way the puzzle's main makes it, with the solution cache turned off
+ * so every invocation really searches. The engine is a parameter, so engines can be compared with
+ * "-p engine=bfs,astar".
+ * @author Christopher Rose
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class SolveBenchmark {
+    /** value of the -engine option the solver is made with */
+    @Param({"auto"})
+    public String engine;
+
+    private Configuration start;
+    private Solver solver;
+
+    /**
+     * makes the solver for a start config
+     * @param start the puzzle's start config
+     */
+    protected void prepare(Configuration start){
+        this.start = start;
+        this.solver = SolverOptions.parse(new String[] {"-engine=" + engine, "-cache=off"}).createSolver(start);
+    }
+
+    /**
+     * solves the puzzle from the start
+     * @return the path, so the search cannot be optimized away
+     */
+    @Benchmark
+    public Collection<Configuration> solve(){
+        return solver.getSolution(start);
+    }
+}
@@ -0,0 +1,39 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.*;
+import puzzles.common.solver.Configuration;
+import puzzles.strings.StringsConfig;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of generating the neighbors of a strings config
+ * @author Christopher Rose
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringsConfigBenchmark {
+    @Param({"CAT", "MARCH"})
+    public String start;
+
+    private StringsConfig config;
+
+    @Setup
+    public void setup(){
+        config = new StringsConfig(start, "ZZZZZ");
+    }
+
+    /**
+     * generates every neighbor of the config
+     * @return the neighbors
+     */
+    @Benchmark
+    public Collection<Configuration> getNeighbors(){
+        return config.getNeighbors();
+    }
+}
@@ -0,0 +1,21 @@
+package puzzles.bench;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import puzzles.strings.StringsConfig;
+
+/**
+ * Solves the strings puzzles that have reference output in output/strings
+ * @author Christopher Rose
+ */
+public class StringsSolveBenchmark extends SolveBenchmark {
+    /** start and finish, as given to the Strings main */
+    @Param({"AB XD", "ABC ABC", "ABC BZD", "B !", "B Y", "CAT DOG", "MARCH APRIL", "P U"})
+    public String arguments;
+
+    @Setup
+    public void setup(){
+        String[] args = arguments.split(" ");
+        prepare(new StringsConfig(args[0], args[1]));
+    }
+}
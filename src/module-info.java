@@ -1,5 +1,7 @@
 module BFSPuzzleSolver {
     requires transitive javafx.controls;
+    requires jdk.jfr;
+    requires java.management;
     exports puzzles.common;
     exports puzzles.common.solver;
     exports puzzles.hoppers.gui;
@@ -0,0 +1,154 @@
+package puzzles.chess.model;
+
+/**
+ * Finds solitaire chess positions that can never be solved, without searching.
+ * <p>
+ * Every move is a capture, so a piece only ever lands on a square that is occupied right now.
+ * Following a piece's attacks from its square to the occupied squares it attacks, and from there
+ * on, gives every square it could ever stand on. Blockers are ignored, so the set may be too big
+ * but is never too small. If no other piece could ever stand on a square this piece could stand
+ * on, it can never be captured. Only one piece is left at the end, so a position is dead if two
+ * pieces can never be captured, or if a piece can never be captured and can never capture either.
+ * @author Christopher Rose
+ */
+final class ChessAnalyzer {
+    private ChessAnalyzer(){
+    }
+
+    /**
+     * checks if a position can be proven unsolvable
+     * @param board the puzzle's board
+     * @param pieces bitboards of each kind of piece, as kept by {@link ChessConfig}
+     * @param occupied bitboard of every piece
+     * @param pieceCount number of pieces
+     * @return true if the position has no solution, false if it might have one
+     */
+    static boolean isDead(ChessBoard board, long[] pieces, long[] occupied, int pieceCount){
+        if (pieceCount <= 1){
+            return false;
+        }
+        int words = board.words;
+        int[] squares = new int[pieceCount];
+        long[][] reach = new long[pieceCount][];
+        int count = 0;
+        for (int kind = 0; kind < pieces.length / words; kind++){
+            for (int w = 0; w < words; w++){
+                long remaining = pieces[kind * words + w];
+                while (remaining != 0){
+                    int square = (w << 6) + Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    squares[count] = square;
+                    reach[count] = reach(board, kind, square, occupied);
+                    count += 1;
+                }
+            }
+        }
+
+        int immortal = 0;
+        for (int i = 0; i < count; i++){
+            boolean captured = false;
+            for (int j = 0; j < count && !captured; j++){
+                captured = j != i && overlaps(reach[i], reach[j]);
+            }
+            if (!captured){
+                immortal += 1;
+                if (immortal > 1 || !canMove(reach[i], squares[i])){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * finds every occupied square a piece could ever stand on
+     * @param board the puzzle's board
+     * @param kind kind of the piece
+     * @param square the piece's square
+     * @param occupied bitboard of every piece
+     * @return bitboard of the squares, including the piece's own
+     */
+    private static long[] reach(ChessBoard board, int kind, int square, long[] occupied){
+        int words = board.words;
+        long[] reach = new long[words];
+        long[] frontier = new long[words];
+        long[] next = new long[words];
+        ChessBoard.set(reach, square);
+        ChessBoard.set(frontier, square);
+        boolean growing = true;
+        while (growing){
+            for (int w = 0; w < words; w++){
+                long from = frontier[w];
+                while (from != 0){
+                    int s = (w << 6) + Long.numberOfTrailingZeros(from);
+                    from &= from - 1;
+                    long[] attacks = attacks(board, kind, s);
+                    for (int v = 0; v < words; v++){
+                        next[v] |= attacks[v];
+                    }
+                    if (kind == ChessConfig.QUEEN){
+                        for (int v = 0; v < words; v++){
+                            next[v] |= board.diagonals[s][v];
+                        }
+                    }
+                }
+            }
+            growing = false;
+            for (int w = 0; w < words; w++){
+                frontier[w] = next[w] & occupied[w] & ~reach[w];
+                reach[w] |= frontier[w];
+                growing |= frontier[w] != 0;
+                next[w] = 0;
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * gets the squares a piece attacks on an empty board. A queen's diagonals are left out and
+     * added by the caller, since it is the only piece with two tables.
+     * @param board the puzzle's board
+     * @param kind kind of the piece
+     * @param square the piece's square
+     * @return bitboard of the attacked squares
+     */
+    private static long[] attacks(ChessBoard board, int kind, int square){
+        return switch (kind){
+            case ChessConfig.KING -> board.kingAttacks[square];
+            case ChessConfig.KNIGHT -> board.knightAttacks[square];
+            case ChessConfig.PAWN -> board.pawnAttacks[square];
+            case ChessConfig.BISHOP -> board.diagonals[square];
+            default -> board.lines[square];
+        };
+    }
+
+    /**
+     * checks if two bitboards have a square in common
+     * @return true or false
+     */
+    private static boolean overlaps(long[] a, long[] b){
+        for (int w = 0; w < a.length; w++){
+            if ((a[w] & b[w]) != 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * checks if a piece could ever reach a square other than its own, which it only does by
+     * capturing
+     * @param reach the squares the piece could stand on
+     * @param square the piece's square
+     * @return true or false
+     */
+    private static boolean canMove(long[] reach, int square){
+        for (int w = 0; w < reach.length; w++){
+            long others = w == square >>> 6 ? reach[w] & ~(1L << square) : reach[w];
+            if (others != 0){
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,168 @@
+package puzzles.chess.model;
+
+import java.util.Arrays;
+
+/**
+ * The fixed part of a solitaire chess puzzle: the grid size and, for every square, where each
+ * kind of piece can attack from it. It is built once when a puzzle file is read and shared by all
+ * the configurations of that puzzle, which only store where the pieces are.
+ * Squares are numbered in row-major order and sets of squares are bitboards of {@link #words}
+ * longs, so square s is {@code board[s >>> 6] & (1L << s)}.
+ * <p>
+ * Kings, knights and pawns attack a fixed set of squares, kept in {@link #kingAttacks},
+ * {@link #knightAttacks} and {@link #pawnAttacks}. Bishops, rooks and queens attack along rays
+ * that stop at the first piece, so for every square there is a mask of each ray out to the edge
+ * of the board; the first piece on a ray is then the lowest or highest set bit of the ray masked
+ * with the occupied squares, depending on which way the ray runs.
+ * @author Christopher Rose
+ */
+final class ChessBoard {
+    /** ray directions as row and column steps, the first four straight and the last four diagonal */
+    static final int[][] DIRECTIONS = {
+            {-1, 0}, {0, -1}, {0, 1}, {1, 0}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}
+    };
+    private static final int[][] KING_STEPS = {
+            {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}
+    };
+    private static final int[][] KNIGHT_STEPS = {
+            {-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}
+    };
+    /** pawns only ever capture up the board, diagonally */
+    private static final int[][] PAWN_STEPS = {{-1, -1}, {-1, 1}};
+
+    final int rows;
+    final int columns;
+    /** number of squares, rows * columns */
+    final int squares;
+    /** number of longs in a bitboard */
+    final int words;
+    /** for each square, the squares a king attacks from it */
+    final long[][] kingAttacks;
+    /** for each square, the squares a knight attacks from it */
+    final long[][] knightAttacks;
+    /** for each square, the squares a pawn attacks from it */
+    final long[][] pawnAttacks;
+    /** for each square and direction, every square on the ray out to the edge of the board */
+    final long[][][] rays;
+    /** for each square, every square a bishop attacks from it on an empty board */
+    final long[][] diagonals;
+    /** for each square, every square a rook attacks from it on an empty board */
+    final long[][] lines;
+
+    /**
+     * builds the attack tables for a grid size
+     * @param rows number of rows
+     * @param columns number of columns
+     */
+    ChessBoard(int rows, int columns){
+        this.rows = rows;
+        this.columns = columns;
+        this.squares = rows * columns;
+        this.words = Math.max(1, (squares + 63) >>> 6);
+        this.kingAttacks = new long[squares][];
+        this.knightAttacks = new long[squares][];
+        this.pawnAttacks = new long[squares][];
+        this.rays = new long[squares][DIRECTIONS.length][];
+        this.diagonals = new long[squares][];
+        this.lines = new long[squares][];
+        for (int r = 0; r < rows; r++){
+            for (int c = 0; c < columns; c++){
+                int square = r * columns + c;
+                kingAttacks[square] = steps(r, c, KING_STEPS);
+                knightAttacks[square] = steps(r, c, KNIGHT_STEPS);
+                pawnAttacks[square] = steps(r, c, PAWN_STEPS);
+                for (int d = 0; d < DIRECTIONS.length; d++){
+                    long[] ray = new long[words];
+                    int r2 = r + DIRECTIONS[d][0];
+                    int c2 = c + DIRECTIONS[d][1];
+                    while (onBoard(r2, c2)){
+                        set(ray, r2 * columns + c2);
+                        r2 += DIRECTIONS[d][0];
+                        c2 += DIRECTIONS[d][1];
+                    }
+                    rays[square][d] = ray;
+                }
+                lines[square] = new long[words];
+                diagonals[square] = new long[words];
+                for (int w = 0; w < words; w++){
+                    for (int d = 0; d < DIRECTIONS.length; d++){
+                        if (d < 4){
+                            lines[square][w] |= rays[square][d][w];
+                        } else {
+                            diagonals[square][w] |= rays[square][d][w];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * makes the bitboard of the squares one step away from a square
+     * @param r row
+     * @param c column
+     * @param steps row and column steps
+     * @return the squares that are on the board
+     */
+    private long[] steps(int r, int c, int[][] steps){
+        long[] attacks = new long[words];
+        for (int[] step: steps){
+            if (onBoard(r + step[0], c + step[1])){
+                set(attacks, (r + step[0]) * columns + c + step[1]);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * checks if a row and column are on the board
+     * @param r row
+     * @param c column
+     * @return true or false
+     */
+    boolean onBoard(int r, int c){
+        return r >= 0 && r < rows && c >= 0 && c < columns;
+    }
+
+    /**
+     * checks if a ray runs towards higher square numbers, so the square nearest its start is the
+     * lowest set bit
+     * @param direction index into {@link #DIRECTIONS}
+     * @return true or false
+     */
+    static boolean ascending(int direction){
+        int[] step = DIRECTIONS[direction];
+        return step[0] > 0 || (step[0] == 0 && step[1] > 0);
+    }
+
+    /**
+     * adds a square to a bitboard
+     * @param bitboard the bitboard
+     * @param square square number
+     */
+    static void set(long[] bitboard, int square){
+        bitboard[square >>> 6] |= 1L << square;
+    }
+
+    /**
+     * two boards are the same if they have the same grid size
+     * @param o other board
+     * @return whether they are equal or not
+     */
+    @Override
+    public boolean equals(Object o){
+        if (this == o) return true;
+        if (!(o instanceof ChessBoard)) return false;
+        ChessBoard that = (ChessBoard) o;
+        return rows == that.rows && columns == that.columns;
+    }
+
+    /**
+     * hashcode method for the board
+     * @return hashcode
+     */
+    @Override
+    public int hashCode(){
+        return Arrays.hashCode(new int[]{rows, columns});
+    }
+}
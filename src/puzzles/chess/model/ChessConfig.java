@@ -1,23 +1,540 @@
 package puzzles.chess.model;
 
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.DeadEndConfiguration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.HeuristicConfiguration;
+import puzzles.common.solver.MonotoneConfiguration;
+import puzzles.common.solver.MutableConfiguration;
 
+import java.io.BufferedReader;
+import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
-// TODO: implement your ChessConfig for the common solver
+/**
+ * Configuration for solitaire chess. Every move is a capture, and the puzzle is solved when a
+ * single piece is left. Pieces move like in chess, except that pawns only capture diagonally up
+ * the board, and nothing is ever in check.
+ * The grid size and attack tables are kept in a {@link ChessBoard} shared by every configuration
+ * of the same puzzle. A configuration only holds one bitboard per kind of piece and one of all
+ * the occupied squares, so making a capture copies a few longs instead of the whole grid.
+ * Configurations are never changed once made, except for working copies made by
+ * {@link #mutableCopy()}. Their moves are the kind of the captured piece times 2^24, plus the
+ * capturing piece's square times 2^12, plus the captured piece's square, which is why boards are
+ * limited to {@link #MAX_SQUARES} squares.
+ * @author Christopher Rose
+ */
+public class ChessConfig implements HeuristicConfiguration, EncodableConfiguration, MutableConfiguration,
+        MonotoneConfiguration, DeadEndConfiguration {
+    /** the piece letters, a piece's kind is its index in this string */
+    private static final String PIECES = "BKNPQR";
+    static final int BISHOP = 0;
+    static final int KING = 1;
+    static final int KNIGHT = 2;
+    static final int PAWN = 3;
+    static final int QUEEN = 4;
+    static final int ROOK = 5;
+    private static final char EMPTY = '.';
+    /** bits of a move taken by each square */
+    private static final int SQUARE_BITS = 12;
+    private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+    /** most squares a board can have, so that every square fits in a move */
+    static final int MAX_SQUARES = 1 << SQUARE_BITS;
+
+    private final ChessBoard board;
+    /** bitboard of each kind of piece, kind k is pieces[k * words] to pieces[k * words + words - 1] */
+    private final long[] pieces;
+    /** bitboard of every square with a piece on it */
+    private final long[] occupied;
+    /** only ever changed in working copies */
+    private int pieceCount;
+    /** grid view of this config, only built when something asks for it */
+    private char[][] graph;
 
-public class ChessConfig implements Configuration {
     public ChessConfig(String filename) throws IOException {
+        try (BufferedReader in = new BufferedReader(new FileReader(filename))){
+            //getting rows and column dimensions
+            String[] dimensions = in.readLine().trim().split("\\s+");
+            int rows = Integer.parseInt(dimensions[0]);
+            int columns = Integer.parseInt(dimensions[1]);
+            if (rows < 1 || columns < 1 || (long) rows * columns > MAX_SQUARES){
+                throw new IOException("Board must have from 1 to " + MAX_SQUARES + " squares: " + filename);
+            }
+            this.board = new ChessBoard(rows, columns);
+            this.pieces = new long[PIECES.length() * board.words];
+            this.occupied = new long[board.words];
+            int count = 0;
+            for (int r = 0; r < rows; r++){
+                String line = in.readLine();
+                if (line == null){
+                    throw new IOException("Missing row " + r + " in " + filename);
+                }
+                String[] rowContents = line.trim().split("\\s+");
+                for (int c = 0; c < columns; c++){
+                    char content = rowContents[c].charAt(0);
+                    if (content != EMPTY){
+                        int kind = PIECES.indexOf(content);
+                        if (kind < 0){
+                            throw new IOException("Unknown piece " + content + " in " + filename);
+                        }
+                        int square = r * columns + c;
+                        pieces[kind * board.words + (square >>> 6)] |= 1L << square;
+                        ChessBoard.set(occupied, square);
+                        count += 1;
+                    }
+                }
+            }
+            this.pieceCount = count;
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Badly formed puzzle file: " + filename, e);
+        }
+    }
+
+    /**
+     * Makes a config on the same board with the given pieces. The bitboards are not copied, so
+     * they must not be changed afterwards.
+     * @param board the puzzle's board
+     * @param pieces bitboards of each kind of piece
+     * @param occupied bitboard of every piece
+     * @param pieceCount number of pieces
+     */
+    private ChessConfig(ChessBoard board, long[] pieces, long[] occupied, int pieceCount){
+        this.board = board;
+        this.pieces = pieces;
+        this.occupied = occupied;
+        this.pieceCount = pieceCount;
     }
 
+    /**
+     * checks if the current configuration is the solution
+     * @return true or false
+     */
     @Override
     public boolean isSolution() {
-        return false;
+        return pieceCount == 1;
+    }
+
+    /**
+     * every move captures exactly one piece and the goal has one left, so the moves left are the
+     * pieces left minus one (and exact when the puzzle is solvable)
+     * @return number of captures still to make
+     */
+    @Override
+    public int estimate() {
+        return pieceCount - 1;
+    }
+
+    /**
+     * every move captures exactly one piece, so every solution captures all but one of them
+     * @return number of captures still to make
+     */
+    @Override
+    public int rank() {
+        return pieceCount - 1;
+    }
+
+    /**
+     * the encoding is the bitboard of each kind of piece, in the order of {@link #PIECES}
+     * @return number of longs in the encoding
+     */
+    @Override
+    public int encodedLength() {
+        return pieces.length;
+    }
+
+    /**
+     * writes the piece bitboards
+     * @param dest array to write into
+     * @param offset index of the first long to write
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        System.arraycopy(pieces, 0, dest, offset, pieces.length);
+    }
+
+    /**
+     * rebuilds a config on the same board from its piece bitboards
+     * @param src array holding the encoding
+     * @param offset index of the first long of the encoding
+     * @return decoded config
+     */
+    @Override
+    public Configuration decode(long[] src, int offset) {
+        long[] newPieces = Arrays.copyOfRange(src, offset, offset + pieces.length);
+        long[] newOccupied = new long[board.words];
+        int count = 0;
+        for (int i = 0; i < newPieces.length; i++){
+            newOccupied[i % board.words] |= newPieces[i];
+            count += Long.bitCount(newPieces[i]);
+        }
+        return new ChessConfig(board, newPieces, newOccupied, count);
     }
 
+    /**
+     * checks if this position can be proven to have no solution, using {@link ChessAnalyzer}.
+     * A position it cannot prove dead may still have no solution.
+     * @return true if there is certainly no solution
+     */
+    @Override
+    public boolean isDead(){
+        return ChessAnalyzer.isDead(board, pieces, occupied, pieceCount);
+    }
+
+    /**
+     * finds all the neighbor configurations for a given configuration, one for every capture.
+     * Pieces are taken by kind and then square, and each piece's captures in the order of the
+     * squares it captures on.
+     * @return collection of all the neighbors
+     */
     @Override
     public Collection<Configuration> getNeighbors() {
-        return null;
+        List<Configuration> neighbors = new ArrayList<>();
+        long[] targets = new long[board.words];
+        for (int kind = 0; kind < PIECES.length(); kind++){
+            for (int w = 0; w < board.words; w++){
+                long remaining = pieces[kind * board.words + w];
+                while (remaining != 0){
+                    int square = (w << 6) + Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    addCaptures(square, targets, neighbors);
+                }
+            }
+        }
+        return neighbors;
+    }
+
+    /**
+     * makes a working copy with its own bitboards
+     * @return the working copy
+     */
+    @Override
+    public MutableConfiguration mutableCopy() {
+        return new ChessConfig(board, pieces.clone(), occupied.clone(), pieceCount);
+    }
+
+    /**
+     * no piece attacks more than eight squares at once
+     * @return eight times the number of squares
+     */
+    @Override
+    public int maxMoves() {
+        return 8 * board.squares;
+    }
+
+    /**
+     * lists the captures, in the same order as the neighbors
+     * @param dest array to write the moves into
+     * @param offset index of the first move to write
+     * @return number of moves written
+     */
+    @Override
+    public int moves(int[] dest, int offset) {
+        int count = 0;
+        long[] targets = new long[board.words];
+        for (int kind = 0; kind < PIECES.length(); kind++){
+            for (int w = 0; w < board.words; w++){
+                long remaining = pieces[kind * board.words + w];
+                while (remaining != 0){
+                    int square = (w << 6) + Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    attacks(kind, square, targets);
+                    for (int v = 0; v < board.words; v++){
+                        long captures = targets[v] & occupied[v];
+                        while (captures != 0){
+                            int target = (v << 6) + Long.numberOfTrailingZeros(captures);
+                            captures &= captures - 1;
+                            dest[offset + count++] = (kindAt(target) << (2 * SQUARE_BITS)) | (square << SQUARE_BITS) | target;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * makes a capture in place
+     * @param move the capture, as listed by {@link #moves(int[], int)}
+     */
+    @Override
+    public void apply(int move) {
+        int from = (move >>> SQUARE_BITS) & SQUARE_MASK;
+        int to = move & SQUARE_MASK;
+        int kind = kindAt(from);
+        pieces[(move >>> (2 * SQUARE_BITS)) * board.words + (to >>> 6)] &= ~(1L << to);
+        pieces[kind * board.words + (from >>> 6)] &= ~(1L << from);
+        pieces[kind * board.words + (to >>> 6)] |= 1L << to;
+        occupied[from >>> 6] &= ~(1L << from);
+        pieceCount -= 1;
+        graph = null;
+    }
+
+    /**
+     * takes a capture back in place
+     * @param move the capture, as passed to {@link #apply(int)}
+     */
+    @Override
+    public void undo(int move) {
+        int from = (move >>> SQUARE_BITS) & SQUARE_MASK;
+        int to = move & SQUARE_MASK;
+        int kind = kindAt(to);
+        pieces[kind * board.words + (to >>> 6)] &= ~(1L << to);
+        pieces[kind * board.words + (from >>> 6)] |= 1L << from;
+        pieces[(move >>> (2 * SQUARE_BITS)) * board.words + (to >>> 6)] |= 1L << to;
+        occupied[from >>> 6] |= 1L << from;
+        pieceCount += 1;
+        graph = null;
+    }
+
+    /**
+     * makes an unchanging copy of a working copy
+     * @return the copy
+     */
+    @Override
+    public Configuration snapshot() {
+        return new ChessConfig(board, pieces.clone(), occupied.clone(), pieceCount);
+    }
+
+    /**
+     * finds the captures the piece at a square can make
+     * @param r row of the piece
+     * @param c column of the piece
+     * @return collection of configurations after each capture, empty if there is no piece there
+     */
+    public List<Configuration> getMoves(int r, int c){
+        List<Configuration> moves = new ArrayList<>();
+        if (isPiece(r, c)){
+            addCaptures(r * board.columns + c, new long[board.words], moves);
+        }
+        return moves;
+    }
+
+    /**
+     * adds a successor for every capture the piece on a square can make
+     * @param square the piece's square
+     * @param targets scratch bitboard, overwritten
+     * @param moves list the successors are added to
+     */
+    private void addCaptures(int square, long[] targets, List<? super ChessConfig> moves){
+        int kind = kindAt(square);
+        attacks(kind, square, targets);
+        for (int w = 0; w < board.words; w++){
+            long captures = targets[w] & occupied[w];
+            while (captures != 0){
+                int target = (w << 6) + Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                moves.add(capture(kind, square, target));
+            }
+        }
+    }
+
+    /**
+     * works out the squares a piece attacks. Sliding pieces stop at, and include, the first
+     * occupied square along each ray.
+     * @param kind kind of piece
+     * @param square the piece's square
+     * @param targets bitboard to write the attacked squares into
+     */
+    private void attacks(int kind, int square, long[] targets){
+        switch (kind){
+            case KING -> System.arraycopy(board.kingAttacks[square], 0, targets, 0, board.words);
+            case KNIGHT -> System.arraycopy(board.knightAttacks[square], 0, targets, 0, board.words);
+            case PAWN -> System.arraycopy(board.pawnAttacks[square], 0, targets, 0, board.words);
+            default -> {
+                Arrays.fill(targets, 0);
+                int first = kind == BISHOP ? 4 : 0;
+                int last = kind == ROOK ? 4 : ChessBoard.DIRECTIONS.length;
+                for (int d = first; d < last; d++){
+                    int blocker = firstBlocker(board.rays[square][d], ChessBoard.ascending(d));
+                    if (blocker >= 0){
+                        ChessBoard.set(targets, blocker);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * finds the first piece along a ray
+     * @param ray every square of the ray
+     * @param ascending true if the ray runs towards higher square numbers
+     * @return square of the nearest piece on the ray, or -1 if the ray is empty
+     */
+    private int firstBlocker(long[] ray, boolean ascending){
+        if (ascending){
+            for (int w = 0; w < board.words; w++){
+                long blockers = ray[w] & occupied[w];
+                if (blockers != 0){
+                    return (w << 6) + Long.numberOfTrailingZeros(blockers);
+                }
+            }
+        } else {
+            for (int w = board.words - 1; w >= 0; w--){
+                long blockers = ray[w] & occupied[w];
+                if (blockers != 0){
+                    return (w << 6) + 63 - Long.numberOfLeadingZeros(blockers);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * makes the successor for a capture that is known to be legal
+     * @param kind kind of the capturing piece
+     * @param from square the piece moves from
+     * @param to square of the captured piece
+     * @return the new config
+     */
+    private ChessConfig capture(int kind, int from, int to){
+        long[] newPieces = pieces.clone();
+        long[] newOccupied = occupied.clone();
+        int captured = kindAt(to);
+        newPieces[captured * board.words + (to >>> 6)] &= ~(1L << to);
+        newPieces[kind * board.words + (from >>> 6)] &= ~(1L << from);
+        newPieces[kind * board.words + (to >>> 6)] |= 1L << to;
+        newOccupied[from >>> 6] &= ~(1L << from);
+        return new ChessConfig(board, newPieces, newOccupied, pieceCount - 1);
+    }
+
+    /**
+     * makes the config the user gets by capturing the piece at (r2, c2) with the one at (r, c)
+     * @param r row of the capturing piece
+     * @param c column of the capturing piece
+     * @param r2 row of the piece to capture
+     * @param c2 column of the piece to capture
+     * @return the new config, or null if that capture is not allowed
+     */
+    public ChessConfig capture(int r, int c, int r2, int c2){
+        if (!isPiece(r, c) || !isPiece(r2, c2)){
+            return null;
+        }
+        int from = r * board.columns + c;
+        int to = r2 * board.columns + c2;
+        int kind = kindAt(from);
+        long[] targets = new long[board.words];
+        attacks(kind, from, targets);
+        if ((targets[to >>> 6] & (1L << to)) == 0){
+            return null;
+        }
+        return capture(kind, from, to);
+    }
+
+    /**
+     * finds which kind of piece is on a square
+     * @param square square number
+     * @return kind of piece, or -1 if the square is empty
+     */
+    private int kindAt(int square){
+        for (int kind = 0; kind < PIECES.length(); kind++){
+            if ((pieces[kind * board.words + (square >>> 6)] & (1L << square)) != 0){
+                return kind;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * checks to see if a square on the grid has a piece on it
+     * @param row row
+     * @param col column
+     * @return true or false, false for squares off the board
+     */
+    public boolean isPiece(int row, int col){
+        if (!board.onBoard(row, col)){
+            return false;
+        }
+        int square = row * board.columns + col;
+        return (occupied[square >>> 6] & (1L << square)) != 0;
+    }
+
+    /**
+     * takes the chess config and turns it into its string representation
+     * @return the printed version of the grid
+     */
+    @Override
+    public String toString(){
+        char[][] graph = getGraph();
+        StringBuilder result = new StringBuilder();
+        for (int r = 0; r < board.rows; r++){
+            for (int c = 0; c < board.columns; c++){
+                if (c == board.columns - 1){
+                    result.append(graph[r][c]).append(System.lineSeparator());
+                } else{
+                    result.append(graph[r][c]).append(" ");
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * equals method for the config to be used in the solver
+     * @param o other config
+     * @return whether they are equal or not
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChessConfig that = (ChessConfig) o;
+        return pieceCount == that.pieceCount && Arrays.equals(pieces, that.pieces)
+                && (board == that.board || board.equals(that.board));
+    }
+
+    /**
+     * hashcode method for the config. used in the solver
+     * @return hashcode made from the piece bitboards
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(pieces);
+    }
+
+    /**
+     * getter method for rows
+     * @return amount of rows in config
+     */
+    public int getRows(){
+        return board.rows;
+    }
+
+    /**
+     * getter method for columns
+     * @return amount of columns in config
+     */
+    public int getColumns(){
+        return board.columns;
+    }
+
+    /**
+     * getter for the number of pieces left
+     * @return piece count
+     */
+    public int getPieceCount(){
+        return pieceCount;
+    }
+
+    /**
+     * getter for the grid form of the config: the piece letters, and '.' for empty squares. The
+     * grid is built the first time it is asked for and shared after that, so it must not be changed.
+     * @return the grid
+     */
+    public char[][] getGraph() {
+        if (graph == null){
+            char[][] grid = new char[board.rows][board.columns];
+            for (int r = 0; r < board.rows; r++){
+                for (int c = 0; c < board.columns; c++){
+                    int kind = kindAt(r * board.columns + c);
+                    grid[r][c] = kind < 0 ? EMPTY : PIECES.charAt(kind);
+                }
+            }
+            graph = grid;
+        }
+        return graph;
     }
 }
@@ -1,17 +1,30 @@
 package puzzles.chess.model;
 
 import puzzles.common.Observer;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.LinkedList;
 import java.util.List;
 
+/**
+ * Model for playing solitaire chess. A move is made by selecting a piece and then the piece it
+ * should capture, and a hint makes the next move on a shortest solution.
+ * @author Christopher Rose
+ */
 public class ChessModel {
     /** the collection of observers of this model */
     private final List<Observer<ChessModel, String>> observers = new LinkedList<>();
 
     /** the current configuration */
     private ChessConfig currentConfig;
+    private String filename;
+    private final Solver puzzleSolver;
+    /** row and column of the selected piece, -1 if no piece is selected */
+    private int selectedR;
+    private int selectedC;
 
     /**
      * The view calls this to add itself as an observer.
@@ -32,6 +45,148 @@ public class ChessModel {
         }
     }
 
+    /**
+     * Chess model constructor
+     * @param filename which file to make the config on
+     * @throws IOException if the file cannot be read
+     */
     public ChessModel(String filename) throws IOException {
+        this.currentConfig = new ChessConfig(filename);
+        this.filename = filename;
+        this.puzzleSolver = new Solver();
+        this.selectedR = -1;
+        this.selectedC = -1;
+    }
+
+    /**
+     * Load method. Reads a new puzzle file and makes it the current game. If the file cannot be
+     * read the current game is kept.
+     * @param filename path and name of the new puzzle file
+     */
+    public void load(String filename){
+        try {
+            currentConfig = new ChessConfig(filename);
+            this.filename = filename;
+            clearSelection();
+            alertObservers("Loaded: " + getPuzzleName());
+        } catch (IOException e) {
+            alertObservers("Failed to load: " + filename);
+        }
+    }
+
+    /**
+     * Reset method. The current puzzle file is loaded again, putting back every captured piece.
+     */
+    public void reset(){
+        load(filename);
+        alertObservers("Puzzle reset!");
+    }
+
+    /**
+     * Hint method. Makes the next capture on the shortest solution the BFS finds, if there is
+     * one. If not, no change is made and the user is notified, straight away if the analyzer can
+     * prove it.
+     */
+    public void hint(){
+        clearSelection();
+        if (currentConfig.isSolution()){
+            alertObservers("Already solved!");
+            return;
+        }
+        if (currentConfig.isDead()){
+            alertObservers("No solution!");
+            return;
+        }
+        Configuration[] path = puzzleSolver.getSolution(currentConfig).toArray(new Configuration[0]);
+        if (path.length < 2){
+            alertObservers("No solution!");
+        } else {
+            currentConfig = (ChessConfig) path[1];
+            alertObservers("Next step!");
+        }
+    }
+
+    /**
+     * Select method. The first selection picks the capturing piece and the second picks the piece
+     * it captures; the capture is made if it is legal, and either way the selection starts over.
+     * A capture that leaves a position the analyzer proves unsolvable is reported as a loss.
+     * @param r row of the selected cell
+     * @param c column of the selected cell
+     */
+    public void select(int r, int c){
+        if (selectedR == -1){
+            if (currentConfig.isPiece(r, c)){
+                selectedR = r;
+                selectedC = c;
+                alertObservers("Selected (" + r + ", " + c + ")");
+            } else {
+                alertObservers("Invalid selection (" + r + ", " + c + ")");
+            }
+        } else {
+            String move = " from (" + selectedR + ", " + selectedC + ")  to (" + r + ", " + c + ")";
+            ChessConfig next = currentConfig.capture(selectedR, selectedC, r, c);
+            clearSelection();
+            if (next == null){
+                alertObservers("Can't capture" + move);
+            } else {
+                currentConfig = next;
+                alertObservers("Captured" + move + (next.isDead() ? " - no solution left, you lost!" : ""));
+            }
+        }
+    }
+
+    /**
+     * forgets the selected piece
+     */
+    private void clearSelection(){
+        selectedR = -1;
+        selectedC = -1;
+    }
+
+    /**
+     * getter for the current config
+     * @return current config
+     */
+    public ChessConfig getCurrentConfig(){
+        return currentConfig;
+    }
+
+    /**
+     * getter for the loaded puzzle file
+     * @return path of the puzzle file
+     */
+    public String getFilename(){
+        return filename;
+    }
+
+    /**
+     * gets the name of the loaded puzzle file without its directories
+     * @return file name
+     */
+    public String getPuzzleName(){
+        return Path.of(filename).getFileName().toString();
+    }
+
+    /**
+     * generates the display version of the configuration with row and column numbers
+     * @return string representation of configuration
+     */
+    @Override
+    public String toString(){
+        StringBuilder display = new StringBuilder("  ");
+        for (int c = 0; c < currentConfig.getColumns(); c++){
+            display.append(" ").append(c);
+        }
+        display.append(System.lineSeparator()).append("  ");
+        display.append("-".repeat(2 * currentConfig.getColumns())).append(System.lineSeparator());
+        char[][] graph = currentConfig.getGraph();
+        for (int r = 0; r < currentConfig.getRows(); r++){
+            display.append(r).append("|");
+            for (int c = 0; c < currentConfig.getColumns(); c++){
+                display.append(" ").append(graph[r][c]);
+            }
+            display.append(System.lineSeparator());
+        }
+        return display.toString();
     }
 }
@@ -6,18 +6,22 @@ import puzzles.chess.model.ChessModel;
 import java.io.IOException;
 import java.util.Scanner;
 
+/**
+ * PTUI for the solitaire chess game
+ * @author Christopher Rose
+ */
 public class ChessPTUI implements Observer<ChessModel, String> {
     private ChessModel model;
 
     public void init(String filename) throws IOException {
         this.model = new ChessModel(filename);
         this.model.addObserver(this);
+        update(model, "Loaded: " + model.getPuzzleName());
         displayHelp();
     }
 
     @Override
     public void update(ChessModel model, String data) {
-        // for demonstration purposes
         System.out.println(data);
         System.out.println(model);
     }
@@ -39,6 +43,14 @@ public class ChessPTUI implements Observer<ChessModel, String> {
             if (words.length > 0) {
                 if (words[0].startsWith( "q" )) {
                     break;
+                } else if (words[0].startsWith("h")) {
+                    model.hint();
+                } else if (words[0].startsWith("l") && words.length == 2) {
+                    model.load(words[1]);
+                } else if (words[0].startsWith("s") && words.length == 3) {
+                    select(words[1], words[2]);
+                } else if (words[0].startsWith("r")) {
+                    model.reset();
                 }
                 else {
                     displayHelp();
@@ -47,6 +59,19 @@ public class ChessPTUI implements Observer<ChessModel, String> {
         }
     }
 
+    /**
+     * selects a cell, or shows the help if the row and column are not numbers
+     * @param row row as typed
+     * @param col column as typed
+     */
+    private void select(String row, String col) {
+        try {
+            model.select(Integer.parseInt(row), Integer.parseInt(col));
+        } catch (NumberFormatException e) {
+            displayHelp();
+        }
+    }
+
     public static void main(String[] args) {
         if (args.length != 1) {
             System.out.println("Usage: java ChessPTUI filename");
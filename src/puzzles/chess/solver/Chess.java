@@ -1,9 +1,65 @@
 package puzzles.chess.solver;
 
+import puzzles.chess.model.ChessConfig;
+import puzzles.common.solver.BatchRunner;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverOptions;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
 public class Chess {
-    public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: java Chess filename");
+    public static void main(String[] args) throws IOException {
+        SolverOptions options;
+        List<String> files = List.of();
+        try {
+            options = SolverOptions.parse(args);
+            files = BatchRunner.expandFiles(options.getArguments());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            options = null;
+        }
+        if (options == null || files.isEmpty()) {
+            System.out.println("Usage: java Chess filename|directory|pattern... " + SolverOptions.USAGE);
+        } else if (files.size() == 1) {
+            solve(files.get(0), options, System.out);
+        } else {
+            SolverOptions batchOptions = options;
+            List<BatchRunner.Job> jobs = new ArrayList<>();
+            for (String file : files) {
+                jobs.add(out -> solve(file, batchOptions, out));
+            }
+            new BatchRunner(options.getJobs()).run(jobs, System.out);
+        }
+    }
+
+    /**
+     * solves one puzzle file and prints the start, the config counts and the path
+     * @param filename the puzzle file
+     * @param options the solver options
+     * @param out where to print
+     * @throws IOException if the puzzle cannot be read
+     */
+    public static void solve(String filename, SolverOptions options, PrintStream out) throws IOException {
+        out.println("File: " + filename);
+        ChessConfig startConfig = new ChessConfig(filename);
+        out.print(startConfig);
+        Solver puzzleSolver = options.createSolver(startConfig);
+        puzzleSolver = options.withCache(puzzleSolver, "chess" + System.lineSeparator() + startConfig);
+        Configuration[] path = puzzleSolver.getSolution(startConfig).toArray(new Configuration[0]);
+        out.println("Total Configs: " + puzzleSolver.getConfigs());
+        out.println("Unique Configs: " + puzzleSolver.getUniqueConfigs());
+        if (path.length == 0) {
+            out.println("No solution");
+        } else {
+            for (int step = 0; step < path.length; step++) {
+                out.println("Step " + step + ": ");
+                out.println(path[step]);
+            }
         }
+        options.printStats(puzzleSolver, out);
     }
 }
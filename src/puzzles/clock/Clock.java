@@ -1,27 +1,64 @@
 package puzzles.clock;
 
+import puzzles.common.solver.BatchRunner;
 import puzzles.common.solver.Configuration;
 import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverOptions;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Clock {
     public static void main(String[] args) {
-        if (args.length < 2) {
-            System.out.println(("Usage: java Clock start stop"));
+        SolverOptions options;
+        try {
+            options = SolverOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            options = null;
+        }
+        if (options == null || options.getArguments().length < 3
+                || options.getArguments().length > 3 && options.getArguments().length % 3 != 0) {
+            System.out.println(("Usage: java Clock hours start stop [hours start stop]... " + SolverOptions.USAGE));
+        } else if (options.getArguments().length == 3) {
+            solve(options.getArguments(), options, System.out);
+        } else {
+            args = options.getArguments();
+            SolverOptions batchOptions = options;
+            List<BatchRunner.Job> jobs = new ArrayList<>();
+            for (int i = 0; i < args.length; i += 3) {
+                String[] puzzle = {args[i], args[i + 1], args[i + 2]};
+                jobs.add(out -> solve(puzzle, batchOptions, out));
+            }
+            new BatchRunner(options.getJobs()).run(jobs, System.out);
+        }
+    }
+
+    /**
+     * solves one clock and prints the config counts and the path
+     * @param args hours, start and end
+     * @param options the solver options
+     * @param out where to print
+     */
+    public static void solve(String[] args, SolverOptions options, PrintStream out) {
+        out.println("Hours: " + args[0] + ", Start: " + args[1] + ", End: " + args[2]);
+        int hours = Integer.parseInt(args[0]);
+        int start = Integer.parseInt(args[1]);
+        int end = Integer.parseInt(args[2]);
+        Configuration startClock = new ClockConfig(start, end, start, hours);
+        Solver puzzleSolver = options.withCache(options.createSolver(startClock),
+                "clock " + hours + " " + start + " " + end);
+        Configuration[] path = puzzleSolver.getSolution(startClock).toArray(new Configuration[0]);
+        out.println("Total Configs: " + puzzleSolver.getConfigs());
+        out.println("Unique Configs: " + puzzleSolver.getUniqueConfigs());
+        if (path.length == 0){
+            out.println("No solution");
         } else {
-            System.out.println("Hours: " + args[0] + ", Start: " + args[1] + ", End: " + args[2]);
-            Configuration startClock = new ClockConfig(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
-                    Integer.parseInt(args[1]), Integer.parseInt(args[0]));
-            Solver puzzleSolver = new Solver();
-            Configuration[] path = puzzleSolver.getSolution(startClock).toArray(new Configuration[0]);
-            System.out.println("Total Configs: " + puzzleSolver.getConfigs());
-            System.out.println("Unique Configs: " + puzzleSolver.getUniqueConfigs());
-            if (path.length == 0){
-                System.out.println("No solution");
-            } else {
-                for (int step = 0; step < path.length; step++){
-                    System.out.println("Step " + step + ": " + path[step].toString());
-                }
+            for (int step = 0; step < path.length; step++){
+                out.println("Step " + step + ": " + path[step].toString());
             }
         }
+        options.printStats(puzzleSolver, out);
     }
-}
\ No newline at end of file
+}
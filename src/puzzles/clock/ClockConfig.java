@@ -1,6 +1,11 @@
 package puzzles.clock;
 
+import puzzles.common.solver.BidirectionalConfiguration;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.HeuristicConfiguration;
+import puzzles.common.solver.NeighborSink;
+import puzzles.common.solver.StreamingConfiguration;
 
 import java.util.*;
 
@@ -9,7 +14,8 @@ import java.util.*;
  * @author Christopher Rose
  */
 
-public class ClockConfig implements Configuration {
+public class ClockConfig implements BidirectionalConfiguration, HeuristicConfiguration,
+        EncodableConfiguration, StreamingConfiguration {
     private int start;
     private int end;
     private int current;
@@ -45,19 +51,122 @@ public class ClockConfig implements Configuration {
     @Override
     public Collection<Configuration> getNeighbors() {
         List<Configuration> neighbors = new ArrayList<>();
-        if (this.current == 1){
-            neighbors.add(new ClockConfig(start, end, hours, hours));
-            neighbors.add(new ClockConfig(start, end, current+1, hours));
-        } else if (this.current == hours){
-            neighbors.add(new ClockConfig(start, end, current-1, hours));
-            neighbors.add(new ClockConfig(start, end, 1, hours));
-        } else {
-            neighbors.add(new ClockConfig(start, end, current-1, hours));
-            neighbors.add(new ClockConfig(start, end, current+1, hours));
-        }
+        forEachNeighbor(neighbors::add);
         return neighbors;
     }
 
+    /**
+     * passes the time one hour back and then one hour forward to a sink, offering each time
+     * before making its config
+     * @param sink receives the neighbors
+     */
+    @Override
+    public void forEachNeighbor(NeighborSink sink) {
+        int back = back(current);
+        int forward = forward(current);
+        long[] encoding = {back};
+        if (sink.offer(encoding, 0) && !sink.accept(new ClockConfig(start, end, back, hours))){
+            return;
+        }
+        encoding[0] = forward;
+        if (sink.offer(encoding, 0)){
+            sink.accept(new ClockConfig(start, end, forward, hours));
+        }
+    }
+
+    /**
+     * gets the time one hour back, wrapping from 1 to the last hour
+     * @param time the time
+     * @return the time before it
+     */
+    private int back(int time){
+        return time == 1 ? hours : time - 1;
+    }
+
+    /**
+     * gets the time one hour forward, wrapping from the last hour to 1
+     * @param time the time
+     * @return the time after it
+     */
+    private int forward(int time){
+        return time != 1 && time == hours ? 1 : time + 1;
+    }
+
+    /**
+     * gets the clock set to the goal time
+     * @return goal config
+     */
+    @Override
+    public Configuration getGoal() {
+        return new ClockConfig(start, end, end, hours);
+    }
+
+    /**
+     * finds the times that move to this one. On the clock those are the hours either side of it,
+     * but a time off the clock can only be reached from the time next to it, and never by
+     * wrapping around, so each candidate is checked against the moves it really makes. The only
+     * candidates are this time's own neighbors and the times just before and after it.
+     * @return list of reverse neighbor configs
+     */
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        List<Configuration> predecessors = new ArrayList<>();
+        int[] candidates = {back(current), forward(current), current - 1, current + 1};
+        for (int i = 0; i < candidates.length; i++){
+            int from = candidates[i];
+            boolean repeated = i >= 2 && (from == candidates[0] || from == candidates[1])
+                    || i == 1 && from == candidates[0];
+            if (!repeated && (back(from) == current || forward(from) == current)){
+                predecessors.add(new ClockConfig(start, end, from, hours));
+            }
+        }
+        return predecessors;
+    }
+
+    /**
+     * distance to the goal time going around the clock whichever way is shorter. Goal times that
+     * are not on the clock count as zero.
+     * @return lower bound on the moves left
+     */
+    @Override
+    public int estimate() {
+        if (end < 1 || end > hours){
+            return 0;
+        }
+        int distance = Math.abs(current - end);
+        return Math.min(distance, hours - distance);
+    }
+
+    /**
+     * the current time fits in a single long
+     * @return 1
+     */
+    @Override
+    public int encodedLength() {
+        return 1;
+    }
+
+    /**
+     * writes the current time
+     * @param dest array to write into
+     * @param offset index to write at
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        dest[offset] = this.current;
+    }
+
+    /**
+     * makes a clock with the same hours and goal at the encoded time
+     * @param src array holding the encoding
+     * @param offset index of the encoding
+     * @return decoded clock config
+     */
+    @Override
+    public Configuration decode(long[] src, int offset) {
+        return new ClockConfig(start, end, (int) src[offset], hours);
+    }
+
     /**
      * checks if a clock config is equal to another
      * @param other clock config that is being compared
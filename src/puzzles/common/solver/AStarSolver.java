@@ -0,0 +1,95 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * A* solver. Configs are expanded in order of moves made so far plus the estimate from
+ * {@link HeuristicConfiguration}, preferring the deepest config when there is a tie.
+ * Configurations without a heuristic are searched with an estimate of zero, which is
+ * the same as a BFS.
+ * @author Christopher Rose
+ */
+public class AStarSolver extends Solver {
+
+    /**
+     * A config waiting in the open queue
+     * @param config the configuration
+     * @param cost moves made to reach it
+     * @param total cost plus estimate
+     * @param order insertion number, used to break the remaining ties
+     */
+    private record Node(Configuration config, int cost, int total, long order) {}
+
+    /** lowest total first, then the deepest node, then the oldest one */
+    private static final Comparator<Node> NODE_ORDER = Comparator.comparingInt(Node::total)
+            .thenComparing(Comparator.comparingInt(Node::cost).reversed())
+            .thenComparingLong(Node::order);
+
+    /**
+     * AStarSolver constructor
+     */
+    public AStarSolver(){
+        super();
+    }
+
+    /**
+     * Uses A* to find the shortest path to the goal of the puzzle
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        configs = 1;
+        uniqueConfigs = 1;
+        startSearch(start);
+        Map<Configuration, Configuration> predecessors = new HashMap<>();
+        Map<Configuration, Integer> costs = new HashMap<>();
+        predecessors.put(key(start), start);
+        costs.put(key(start), 0);
+
+        PriorityQueue<Node> open = new PriorityQueue<>(NODE_ORDER);
+        long order = 0;
+        open.add(new Node(start, 0, estimate(start), order++));
+        while (!open.isEmpty()){
+            Node node = open.poll();
+            Configuration current = node.config();
+            if (node.cost() > costs.get(key(current))){
+                //a cheaper way to this config was found after this node was queued
+                continue;
+            }
+            checkpoint(node.cost());
+            if (current.isSolution()){
+                return finishSearch(constructPath(predecessors, current), costs.size());
+            }
+            int cost = node.cost() + 1;
+            for (Configuration nbr: neighbors(current)){
+                configs += 1;
+                Configuration nbrKey = key(nbr);
+                long lookup = lookupStart();
+                Integer known = costs.get(nbrKey);
+                lookupEnd(lookup);
+                if (known == null || cost < known){
+                    if (known == null){
+                        uniqueConfigs += 1;
+                        discovered(cost);
+                    }
+                    lookup = lookupStart();
+                    costs.put(nbrKey, cost);
+                    predecessors.put(nbrKey, current);
+                    lookupEnd(lookup);
+                    open.add(new Node(nbr, cost, cost + estimate(nbr), order++));
+                }
+            }
+        }
+        return finishSearch(new ArrayList<>(), costs.size());
+    }
+
+    /**
+     * gets the heuristic estimate of a config
+     * @param config the configuration
+     * @return its estimate, or zero if it has no heuristic
+     */
+    static int estimate(Configuration config){
+        return config instanceof HeuristicConfiguration ? ((HeuristicConfiguration) config).estimate() : 0;
+    }
+}
@@ -0,0 +1,167 @@
+package puzzles.common.solver;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Solves many puzzles in one JVM, so that startup and warm up are only paid once. The puzzles are
+ * solved on a fixed pool of worker threads, each into its own buffer, and the buffers are printed
+ * in the order the puzzles were given as soon as every puzzle before them is done. Each puzzle's
+ * results are in the format its main prints for a single puzzle, followed by how long it took.
+ * A puzzle that throws only fails itself, the rest of the batch still runs.
+ * @author Christopher Rose
+ */
+public class BatchRunner {
+    /**
+     * One puzzle of a batch
+     */
+    @FunctionalInterface
+    public interface Job {
+        /**
+         * solves the puzzle
+         * @param out where to print the results
+         * @throws Exception if the puzzle cannot be solved
+         */
+        void run(PrintStream out) throws Exception;
+    }
+
+    private final int workers;
+
+    /**
+     * BatchRunner constructor
+     * @param workers number of puzzles to solve at the same time
+     */
+    public BatchRunner(int workers){
+        this.workers = workers;
+    }
+
+    /**
+     * solves every job and prints their results in order, then a summary line
+     * @param jobs the puzzles to solve
+     * @param out where to print the results
+     */
+    public void run(List<Job> jobs, PrintStream out){
+        long begin = System.nanoTime();
+        int threads = Math.min(workers, Math.max(1, jobs.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "batch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int failed = 0;
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            List<ByteArrayOutputStream> buffers = new ArrayList<>();
+            for (Job job: jobs){
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                buffers.add(buffer);
+                results.add(pool.submit(() -> solve(job, buffer)));
+            }
+            for (int i = 0; i < jobs.size(); i++){
+                if (!results.get(i).get()){
+                    failed += 1;
+                }
+                out.print(buffers.get(i).toString(StandardCharsets.UTF_8));
+                buffers.set(i, null);
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            out.println("Batch interrupted");
+            return;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch worker failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        out.println("Solved " + jobs.size() + " puzzles in " + (System.nanoTime() - begin) / 1_000_000
+                + " ms, " + threads + " at a time, " + failed + " failed");
+    }
+
+    /**
+     * solves one job into its buffer, and adds how long it took or why it failed
+     * @param job the puzzle
+     * @param buffer where its results go
+     * @return true if it was solved without throwing
+     */
+    private static boolean solve(Job job, ByteArrayOutputStream buffer){
+        long begin = System.nanoTime();
+        boolean solved = true;
+        try (PrintStream out = new PrintStream(buffer, false, StandardCharsets.UTF_8)){
+            try {
+                job.run(out);
+            } catch (Exception | Error e) {
+                out.println("Error: " + e);
+                solved = false;
+            }
+            out.println("Time: " + (System.nanoTime() - begin) / 1_000_000 + " ms");
+            out.println();
+        }
+        return solved;
+    }
+
+    /**
+     * turns puzzle file arguments into a list of files. A directory stands for the files in it and
+     * an argument with wildcards in its last part, like data/hoppers/*.txt, for the files it
+     * matches, both sorted by name. Anything else is kept as it is.
+     * @param args the arguments
+     * @return the files, in order
+     * @throws IOException if a directory cannot be listed
+     * @throws IllegalArgumentException if there are wildcards before the last part of a path
+     */
+    public static List<String> expandFiles(String[] args) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String arg: args){
+            if (isPattern(arg)){
+                int slash = Math.max(arg.lastIndexOf('/'), arg.lastIndexOf(File.separatorChar));
+                Path directory = slash < 0 ? null : Path.of(slash == 0 ? "/" : arg.substring(0, slash));
+                if (directory != null && isPattern(directory.toString())){
+                    throw new IllegalArgumentException("Only the file name may have wildcards: " + arg);
+                }
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + arg.substring(slash + 1));
+                addFiles(directory, directory == null ? Path.of(".") : directory, matcher, files);
+            } else if (Files.isDirectory(Path.of(arg))){
+                addFiles(Path.of(arg), Path.of(arg), null, files);
+            } else {
+                files.add(arg);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * adds the regular, not hidden files of a directory, sorted by name
+     * @param prefix directory to put in front of the names, null for none
+     * @param directory the directory
+     * @param matcher pattern the names have to match, null for any
+     * @param files list to add them to
+     * @throws IOException if the directory cannot be listed
+     */
+    private static void addFiles(Path prefix, Path directory, PathMatcher matcher, List<String> files) throws IOException {
+        try (Stream<Path> listing = Files.list(directory)){
+            listing.filter(Files::isRegularFile)
+                    .map(Path::getFileName)
+                    .filter(name -> !name.toString().startsWith("."))
+                    .filter(name -> matcher == null || matcher.matches(name))
+                    .sorted()
+                    .forEach(name -> files.add(prefix == null ? name.toString() : prefix.resolve(name).toString()));
+        }
+    }
+
+    /**
+     * checks if an argument has glob wildcards in it
+     * @param arg the argument
+     * @return true or false
+     */
+    private static boolean isPattern(String arg){
+        return arg.chars().anyMatch(c -> "*?[{".indexOf(c) >= 0);
+    }
+}
@@ -0,0 +1,23 @@
+package puzzles.common.solver;
+
+import java.util.Collection;
+
+/**
+ * Optional capability for configurations that know the exact state they are trying to reach and
+ * can step backwards from any state. Such puzzles can be searched from both ends at once by the
+ * {@link BidirectionalSolver}.
+ * @author Christopher Rose
+ */
+public interface BidirectionalConfiguration extends Configuration {
+    /**
+     * gets the goal state. It must be the only configuration for which isSolution is true
+     * @return the goal configuration
+     */
+    Configuration getGoal();
+
+    /**
+     * finds every configuration that has this one as a neighbor
+     * @return collection of the reverse neighbors
+     */
+    Collection<Configuration> getPredecessors();
+}
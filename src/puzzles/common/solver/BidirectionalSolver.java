@@ -0,0 +1,116 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * Meet in the middle BFS solver for puzzles with a single known goal. One search runs forward from
+ * the start and another runs backward from the goal, always growing whichever search has seen
+ * fewer configs by a whole layer. The first config the two searches share lies on a shortest path.
+ * Balancing on everything seen rather than on the frontiers means a search that can go on forever,
+ * like one walking off the end of the alphabet one character at a time, cannot starve the other
+ * side once that side has run out of configs.
+ * @author Christopher Rose
+ */
+public class BidirectionalSolver extends Solver {
+
+    /**
+     * BidirectionalSolver constructor
+     */
+    public BidirectionalSolver(){
+        super();
+    }
+
+    /**
+     * Searches from both ends for the shortest path to the goal. Configurations that do not
+     * implement {@link BidirectionalConfiguration} are solved with the plain forward BFS, and so are
+     * {@link SymmetricConfiguration}s, since the two searches would have to meet in the same
+     * orientation for their halves to join up.
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        if (!(start instanceof BidirectionalConfiguration) || start instanceof SymmetricConfiguration){
+            return super.getSolution(start);
+        }
+        configs = 1;
+        uniqueConfigs = 1;
+        startSearch(start);
+        Map<Configuration, Configuration> forward = new HashMap<>();
+        forward.put(start, start);
+        if (start.isSolution()){
+            return finishSearch(constructPath(forward, start), 1);
+        }
+
+        Configuration goal = ((BidirectionalConfiguration) start).getGoal();
+        configs += 1;
+        uniqueConfigs += 1;
+        //the backward map holds each config's successor on the way to the goal
+        Map<Configuration, Configuration> backward = new HashMap<>();
+        backward.put(goal, goal);
+
+        List<Configuration> forwardLayer = List.of(start);
+        List<Configuration> backwardLayer = List.of(goal);
+        int depth = 0;
+        while (!forwardLayer.isEmpty() && !backwardLayer.isEmpty()){
+            boolean forwards = forward.size() <= backward.size();
+            Map<Configuration, Configuration> own = forwards ? forward : backward;
+            Map<Configuration, Configuration> other = forwards ? backward : forward;
+            List<Configuration> next = new ArrayList<>();
+            depth += 1;
+            for (Configuration current: forwards ? forwardLayer : backwardLayer){
+                checkpoint(depth);
+                Collection<Configuration> nbrs = forwards ? neighbors(current)
+                        : ((BidirectionalConfiguration) current).getPredecessors();
+                for (Configuration nbr: nbrs){
+                    configs += 1;
+                    long lookup = lookupStart();
+                    boolean added = own.putIfAbsent(nbr, current) == null;
+                    boolean met = added && other.containsKey(nbr);
+                    lookupEnd(lookup);
+                    if (added){
+                        uniqueConfigs += 1;
+                        discovered(depth);
+                        if (met){
+                            return finishSearch(joinPaths(forward, backward, nbr), forward.size() + backward.size());
+                        }
+                        next.add(nbr);
+                    }
+                }
+            }
+            if (forwards){
+                forwardLayer = next;
+            } else {
+                backwardLayer = next;
+            }
+        }
+        return finishSearch(new ArrayList<>(), forward.size() + backward.size());
+    }
+
+    /**
+     * joins the two halves of the path where the searches met
+     * @param forward predecessor map of the forward search
+     * @param backward successor map of the backward search
+     * @param meeting config both searches reached
+     * @return the path from the start to the goal
+     * @throws IllegalStateException if the backward half has a step that is not a move, which
+     * means the configuration's predecessors do not match its neighbors
+     */
+    private List<Configuration> joinPaths(Map<Configuration, Configuration> forward,
+                                          Map<Configuration, Configuration> backward,
+                                          Configuration meeting){
+        List<Configuration> path = constructPath(forward, meeting);
+        int joined = path.size() - 1;
+        Configuration currConfig = meeting;
+        Configuration nextConfig = backward.get(currConfig);
+        while (!nextConfig.equals(currConfig)){
+            path.add(nextConfig);
+            currConfig = nextConfig;
+            nextConfig = backward.get(currConfig);
+        }
+        if (!isLegalPath(path.subList(joined, path.size()))){
+            throw new IllegalStateException("Predecessors that are not reverse moves on the way to " + currConfig);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,142 @@
+package puzzles.common.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Solver that looks the puzzle up in a {@link SolutionCache} before searching, and saves what the
+ * search finds. On a hit the counters hold the counts of the search that made the entry, so the
+ * key has to tell apart searches that count differently, and there are no {@link SolverStats}.
+ * A cached path is only used if it is a legal path from the start to a solution, and only legal
+ * paths are saved; an entry that fails the check is removed and the puzzle searched again.
+ * Configurations that are not {@link EncodableConfiguration}s are never cached.
+ * @author Christopher Rose
+ */
+public class CachedSolver extends Solver {
+    private final Solver solver;
+    private final SolutionCache cache;
+    private final String key;
+    private final boolean verify;
+    private final boolean repeatable;
+    private boolean hit;
+
+    /**
+     * CachedSolver constructor
+     * @param solver solver used when the cache does not have the puzzle
+     * @param cache the solution cache
+     * @param key string that identifies the puzzle being solved
+     * @param verify if true, always search and check the cached entry against the new solution
+     * @param repeatable true if the solver finds the same path with the same counts every time,
+     * so verifying compares those too and not just the length
+     */
+    public CachedSolver(Solver solver, SolutionCache cache, String key, boolean verify, boolean repeatable){
+        super();
+        this.solver = solver;
+        this.cache = cache;
+        this.key = key;
+        this.verify = verify;
+        this.repeatable = repeatable;
+    }
+
+    /**
+     * gets the cached solution if there is one, otherwise searches and saves the solution
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     * @throws IllegalStateException when verifying and the cached entry does not match the new
+     * solution, in which case the entry is also removed
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        hit = false;
+        if (!(start instanceof EncodableConfiguration)){
+            return solve(start);
+        }
+        EncodableConfiguration encoder = (EncodableConfiguration) start;
+        SolutionCache.Entry entry = cache.get(key);
+        List<Configuration> cached = null;
+        if (entry != null && entry.width() == encoder.encodedLength()){
+            cached = new ArrayList<>();
+            for (int step = 0; step < entry.length(); step++){
+                cached.add(encoder.decode(entry.path(), step * entry.width()));
+            }
+            if (!isValid(start, cached)){
+                cache.remove(key);
+                cached = null;
+            }
+        }
+        if (cached != null && !verify){
+            hit = true;
+            stats = null;
+            configs = entry.configs();
+            uniqueConfigs = entry.uniqueConfigs();
+            return cached;
+        }
+
+        long begin = System.nanoTime();
+        Collection<Configuration> path = solve(start);
+        long nanos = System.nanoTime() - begin;
+        int width = encoder.encodedLength();
+        long[] encoded = new long[path.size() * width];
+        int step = 0;
+        for (Configuration config: path){
+            ((EncodableConfiguration) config).encode(encoded, step++ * width);
+        }
+        if (cached != null){
+            String mismatch = null;
+            if (cached.size() != path.size()){
+                mismatch = "has " + cached.size() + " configs but the search found " + path.size();
+            } else if (repeatable && !Arrays.equals(entry.path(), encoded)){
+                mismatch = "has a different path than the search found";
+            } else if (repeatable && (entry.configs() != configs || entry.uniqueConfigs() != uniqueConfigs)){
+                mismatch = "has counts " + entry.configs() + "/" + entry.uniqueConfigs()
+                        + " but the search counted " + configs + "/" + uniqueConfigs;
+            }
+            if (mismatch != null){
+                cache.remove(key);
+                throw new IllegalStateException("Cached solution for " + key.lines().findFirst().orElse(key)
+                        + " " + mismatch);
+            }
+        }
+        if (isValid(start, new ArrayList<>(path))){
+            cache.put(key, new SolutionCache.Entry(configs, uniqueConfigs, nanos, width, encoded));
+        }
+        return path;
+    }
+
+    /**
+     * checks that a path can be trusted: an empty path, or one that starts at the start, only
+     * makes legal moves and ends at a solution
+     * @param start the starting configuration
+     * @param path the path
+     * @return true or false
+     */
+    private static boolean isValid(Configuration start, List<Configuration> path){
+        if (path.isEmpty()){
+            return true;
+        }
+        return path.get(0).equals(start) && path.get(path.size() - 1).isSolution() && isLegalPath(path);
+    }
+
+    /**
+     * checks if the last solution came out of the cache
+     * @return true or false
+     */
+    public boolean isCacheHit(){
+        return hit;
+    }
+
+    /**
+     * runs the real solver and copies its counters
+     * @param start the starting configuration
+     * @return the solver's path
+     */
+    private Collection<Configuration> solve(Configuration start){
+        Collection<Configuration> path = solver.getSolution(start);
+        configs = solver.getConfigs();
+        uniqueConfigs = solver.getUniqueConfigs();
+        stats = solver.getStats();
+        return path;
+    }
+}
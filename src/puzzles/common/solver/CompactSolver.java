@@ -0,0 +1,173 @@
+package puzzles.common.solver;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * BFS solver that stores the visited configs and their parents as encoded longs in a
+ * {@link StateStore} instead of a HashMap of configurations. States get ids in the order
+ * they are found, so the queue is simply the range of ids not expanded yet. Configurations
+ * that are not {@link EncodableConfiguration}s are solved by the plain BFS. A
+ * {@link StreamingConfiguration} offers each neighbor's encoding before building it, so a
+ * neighbor that is already in the store is never built at all.
+ * @author Christopher Rose
+ */
+public class CompactSolver extends Solver {
+    private final IntFunction<StateStore> storeFactory;
+
+    /**
+     * CompactSolver constructor, keeps the visited states in a {@link HeapStateStore}
+     */
+    public CompactSolver(){
+        this(HeapStateStore::new);
+    }
+
+    /**
+     * CompactSolver constructor
+     * @param storeFactory makes a store for states of the given number of longs, called once per search
+     */
+    public CompactSolver(IntFunction<StateStore> storeFactory){
+        super();
+        this.storeFactory = storeFactory;
+    }
+
+    /**
+     * Uses a BFS over encoded states to find the shortest path to the goal. The counters have
+     * the same meaning as in {@link Solver#getSolution(Configuration)}.
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        if (!(start instanceof EncodableConfiguration)){
+            return super.getSolution(start);
+        }
+        EncodableConfiguration encoder = (EncodableConfiguration) start;
+        int width = encoder.encodedLength();
+        long[] state = new long[width];
+        configs = 1;
+        uniqueConfigs = 1;
+        startSearch(start);
+        try (StateStore store = createStore(width)){
+            ((EncodableConfiguration) key(start)).encode(state, 0);
+            store.add(state, 0, -1);
+            if (start.isSolution()){
+                return finishSearch(new ArrayList<>(List.of(start)), 1);
+            }
+            //every id below store.size() that has not been expanded yet is in the queue, and the
+            //ids of each depth come right after the ones of the depth before
+            int depth = 0;
+            int layerEnd = 1;
+            //the encodings a config offers are not canonical, so they can only be used without symmetry
+            Expansion expansion = new Expansion(store, state,
+                    start instanceof StreamingConfiguration && !usesSymmetry(start));
+            for (int current = 0; current < store.size(); current++){
+                if (current == layerEnd){
+                    depth += 1;
+                    layerEnd = store.size();
+                }
+                checkpoint(depth);
+                store.get(current, state, 0);
+                expansion.parent = current;
+                expansion.depth = depth + 1;
+                forEachNeighbor(encoder.decode(state, 0), expansion);
+                if (expansion.goal >= 0){
+                    return finishSearch(orient(start, constructPath(store, encoder, expansion.goal)), store.size());
+                }
+            }
+            return finishSearch(new ArrayList<>(), store.size());
+        }
+    }
+
+    /**
+     * makes the store the visited states are kept in
+     * @param width number of longs in each encoded state
+     * @return an empty store
+     */
+    protected StateStore createStore(int width){
+        return storeFactory.apply(width);
+    }
+
+    /**
+     * constructs the path of the solution by following the parent ids back from the goal
+     * @param store store holding the visited states
+     * @param encoder any config of the puzzle, used to decode the states
+     * @param end id of the goal state
+     * @return the shortest path, in order from the start to the goal
+     */
+    protected List<Configuration> constructPath(StateStore store, EncodableConfiguration encoder, int end){
+        long[] state = new long[encoder.encodedLength()];
+        List<Configuration> path = new ArrayList<>();
+        for (int id = end; id >= 0; id = store.parent(id)){
+            store.get(id, state, 0);
+            path.add(encoder.decode(state, 0));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Adds the neighbors of one config to the store, and stops at the first one that is a goal
+     */
+    private class Expansion implements NeighborSink {
+        private final StateStore store;
+        private final long[] state;
+        /** true if neighbors are added when their encoding is offered, false if when accepted */
+        private final boolean byOffer;
+        /** id of the config being expanded */
+        int parent;
+        /** depth of its neighbors */
+        int depth;
+        /** id of the goal, -1 until one is found */
+        int goal;
+        /** id of the last neighbor added */
+        private int added;
+
+        Expansion(StateStore store, long[] state, boolean byOffer){
+            this.store = store;
+            this.state = state;
+            this.byOffer = byOffer;
+            this.goal = -1;
+        }
+
+        @Override
+        public boolean offer(long[] encoding, int offset){
+            return !byOffer || add(encoding, offset);
+        }
+
+        @Override
+        public boolean accept(Configuration nbr){
+            if (!byOffer){
+                ((EncodableConfiguration) key(nbr)).encode(state, 0);
+                if (!add(state, 0)){
+                    return true;
+                }
+            }
+            if (nbr.isSolution()){
+                goal = added;
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * adds a neighbor to the store if it is not there yet
+         * @param encoding array holding the neighbor's encoding
+         * @param offset index of the first long of the encoding
+         * @return true if it was new
+         */
+        private boolean add(long[] encoding, int offset){
+            configs += 1;
+            long lookup = lookupStart();
+            int id = store.add(encoding, offset, parent);
+            lookupEnd(lookup);
+            if (id < 0){
+                return false;
+            }
+            uniqueConfigs += 1;
+            discovered(depth);
+            added = id;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package puzzles.common.solver;
+
+/**
+ * Optional capability for configurations that can sometimes prove, without searching, that they
+ * have no solution. The solvers skip such configs instead of searching everything after them.
+ * @author Christopher Rose
+ */
+public interface DeadEndConfiguration extends Configuration {
+    /**
+     * checks if this config can be proven to have no solution. It must never be true for a config
+     * that has one, but may be false for a config that has none
+     * @return true if there is certainly no solution
+     */
+    boolean isDead();
+}
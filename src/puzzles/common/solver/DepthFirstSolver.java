@@ -0,0 +1,334 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * Depth first solver for {@link MutableConfiguration}s. The tree is walked with a single working
+ * copy of the start, applying a move on the way down and undoing it on the way back, so a node
+ * costs a few writes into an int array rather than a new configuration.
+ * <p>
+ * A {@link MonotoneConfiguration} has all its solutions the same length, so it is searched in one
+ * pass that stops at the first solution. Configs whose whole subtree has been searched without a
+ * solution are remembered in a memo of encoded states when the configuration is
+ * {@link EncodableConfiguration}, so a dead config that is reached again by moves in another order
+ * is cut off straight away. Configs that are proven dead are cut off without searching them.
+ * <p>
+ * Other configurations are searched by iterative deepening. Each iteration is cut off at a bound
+ * on moves made plus the estimate from {@link HeuristicConfiguration} (zero for other
+ * configurations), and the bound is raised to the smallest value that was cut off until the goal is
+ * found. There is no visited set and no check against the current path, so puzzles with cycles are
+ * only held back by the bound.
+ * <p>
+ * Moves are tried in the order the configuration lists them, or sorted by how many replies the
+ * config after the move has. Trying the fewest replies first deals with the parts of the puzzle
+ * that are about to run out of options while they still can be; trying the most replies first
+ * keeps the most options open. Which finds a solution sooner depends on the puzzle.
+ * Configurations that are not mutable are solved by the plain BFS.
+ * @author Christopher Rose
+ */
+public class DepthFirstSolver extends Solver {
+    /** most dead states the memo keeps, after that it stops growing */
+    private static final int MEMO_LIMIT = 1 << 24;
+
+    /**
+     * The order moves are tried in
+     */
+    public enum MoveOrder {
+        /** the order {@link MutableConfiguration#moves(int[], int)} lists them in */
+        NATURAL,
+        /** the move leaving the fewest replies first */
+        FEWEST_REPLIES,
+        /** the move leaving the most replies first */
+        MOST_REPLIES
+    }
+
+    private final MoveOrder order;
+    /** dead states shared between searches, null for each search to use its own */
+    private StateStore deadStates;
+    /** scratch space for ordering moves */
+    private int[] replies;
+    private int[] scratch;
+
+    /**
+     * DepthFirstSolver constructor, tries moves in the order the configuration lists them
+     */
+    public DepthFirstSolver(){
+        this(MoveOrder.NATURAL);
+    }
+
+    /**
+     * DepthFirstSolver constructor
+     * @param order the order to try moves in
+     */
+    public DepthFirstSolver(MoveOrder order){
+        super();
+        this.order = order;
+    }
+
+    /**
+     * sets a memo of dead states for searches of monotone puzzles to start from and add to, so
+     * what one search proved is not searched again by the next. It has to hold encoded states of
+     * the same puzzle, and it is left open after each search.
+     * @param deadStates the memo, or null for each search to make and close its own
+     */
+    public void setDeadStates(StateStore deadStates){
+        this.deadStates = deadStates;
+    }
+
+    /**
+     * Searches depth first for a solution, which is always a shortest one. As in
+     * {@link IDAStarSolver}, the depth counts are over everything the search generated and the
+     * peak visited size is the longest path, plus the size of the memo for monotone puzzles. For
+     * those the unique configs are the configs the memo did not cut off, for others they are the
+     * configs generated by the last iteration.
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        if (!(start instanceof MutableConfiguration)){
+            return super.getSolution(start);
+        }
+        configs = 1;
+        uniqueConfigs = 1;
+        startSearch(start);
+        if (start.isSolution()){
+            return finishSearch(new ArrayList<>(List.of(start)), 1);
+        }
+        MutableConfiguration board = ((MutableConfiguration) start).mutableCopy();
+        replies = new int[board.maxMoves()];
+        scratch = new int[board.maxMoves()];
+        if (start instanceof MonotoneConfiguration){
+            return firstSolution((MutableConfiguration) start, board);
+        }
+        return iterativeDeepening((MutableConfiguration) start, board);
+    }
+
+    /**
+     * searches a monotone puzzle in a single pass, stopping at the first solution
+     * @param start the starting configuration
+     * @param board working copy of the start
+     * @return the path to the solution, or an empty list if there is none
+     */
+    private Collection<Configuration> firstSolution(MutableConfiguration start, MutableConfiguration board){
+        int width = board.maxMoves();
+        int[] moves = new int[width * 16];
+        int[] next = new int[16];
+        int[] count = new int[16];
+        int longest = 1;
+        StateStore dead = null;
+        long[] state = null;
+        if (start instanceof EncodableConfiguration){
+            dead = deadStates != null ? deadStates : new HeapStateStore(((EncodableConfiguration) start).encodedLength());
+            state = new long[((EncodableConfiguration) start).encodedLength()];
+        }
+
+        try {
+            if (dead != null){
+                //an earlier search sharing the memo may already have searched this start
+                ((EncodableConfiguration) board).encode(state, 0);
+                if (dead.find(state, 0) >= 0){
+                    return finishSearch(new ArrayList<>(), longest + dead.size());
+                }
+            }
+            int depth = 0;
+            count[0] = listMoves(board, moves, 0);
+            next[0] = 0;
+            while (depth >= 0){
+                if (next[depth] == count[depth]){
+                    //every move from here has been searched, so there is no solution from here
+                    if (dead != null && dead.size() < MEMO_LIMIT){
+                        ((EncodableConfiguration) board).encode(state, 0);
+                        dead.add(state, 0, -1);
+                    }
+                    depth -= 1;
+                    if (depth >= 0){
+                        board.undo(moves[depth * width + next[depth] - 1]);
+                    }
+                    continue;
+                }
+                checkpoint(depth);
+                int move = moves[depth * width + next[depth]];
+                next[depth] += 1;
+                board.apply(move);
+                configs += 1;
+                if (dead != null){
+                    long lookup = lookupStart();
+                    ((EncodableConfiguration) board).encode(state, 0);
+                    boolean known = dead.find(state, 0) >= 0;
+                    lookupEnd(lookup);
+                    if (known){
+                        board.undo(move);
+                        continue;
+                    }
+                }
+                if (isDeadEnd(board)){
+                    board.undo(move);
+                    continue;
+                }
+                uniqueConfigs += 1;
+                discovered(depth + 1);
+                longest = Math.max(longest, depth + 2);
+                if (board.isSolution()){
+                    return finishSearch(replay(start, moves, next, width, depth + 1),
+                            longest + (dead == null ? 0 : dead.size()));
+                }
+                depth += 1;
+                if (depth == next.length){
+                    next = Arrays.copyOf(next, depth * 2);
+                    count = Arrays.copyOf(count, depth * 2);
+                    moves = Arrays.copyOf(moves, width * depth * 2);
+                }
+                count[depth] = listMoves(board, moves, depth * width);
+                next[depth] = 0;
+            }
+            return finishSearch(new ArrayList<>(), longest + (dead == null ? 0 : dead.size()));
+        } finally {
+            if (dead != null && dead != deadStates){
+                dead.close();
+            }
+        }
+    }
+
+    /**
+     * searches with iterative deepening, raising the bound until the goal is found
+     * @param start the starting configuration
+     * @param board working copy of the start
+     * @return the shortest path to the solution, or an empty list if there is none
+     */
+    private Collection<Configuration> iterativeDeepening(MutableConfiguration start, MutableConfiguration board){
+        int width = board.maxMoves();
+        //moves[depth * width ...] are the moves of the node at that depth on the current path,
+        //next[depth] is the one to try next and count[depth] how many there are
+        int[] moves = new int[width * 16];
+        int[] next = new int[16];
+        int[] count = new int[16];
+        int longest = 1;
+
+        int bound = AStarSolver.estimate(board);
+        while (true){
+            long iterationConfigs = 1;
+            int nextBound = Integer.MAX_VALUE;
+            int depth = 0;
+            count[0] = listMoves(board, moves, 0);
+            next[0] = 0;
+            while (depth >= 0){
+                if (next[depth] == count[depth]){
+                    depth -= 1;
+                    if (depth >= 0){
+                        board.undo(moves[depth * width + next[depth] - 1]);
+                    }
+                    continue;
+                }
+                checkpoint(depth);
+                int move = moves[depth * width + next[depth]];
+                next[depth] += 1;
+                board.apply(move);
+                configs += 1;
+                iterationConfigs += 1;
+                int total = depth + 1 + AStarSolver.estimate(board);
+                if (total > bound){
+                    nextBound = Math.min(nextBound, total);
+                    board.undo(move);
+                    continue;
+                }
+                if (isDeadEnd(board)){
+                    board.undo(move);
+                    continue;
+                }
+                discovered(depth + 1);
+                longest = Math.max(longest, depth + 2);
+                if (board.isSolution()){
+                    uniqueConfigs = iterationConfigs;
+                    return finishSearch(replay(start, moves, next, width, depth + 1), longest);
+                }
+                depth += 1;
+                if (depth == next.length){
+                    next = Arrays.copyOf(next, depth * 2);
+                    count = Arrays.copyOf(count, depth * 2);
+                    moves = Arrays.copyOf(moves, width * depth * 2);
+                }
+                count[depth] = listMoves(board, moves, depth * width);
+                next[depth] = 0;
+            }
+            uniqueConfigs = iterationConfigs;
+            if (nextBound == Integer.MAX_VALUE){
+                return finishSearch(new ArrayList<>(), longest);
+            }
+            bound = nextBound;
+        }
+    }
+
+    /**
+     * lists the moves of the working copy in the order they should be tried, counting it as an
+     * expansion and timing it as neighbor time when statistics are being collected
+     * @param board the working copy
+     * @param dest array to write the moves into
+     * @param offset index of the first move to write
+     * @return number of moves written
+     */
+    private int listMoves(MutableConfiguration board, int[] dest, int offset){
+        if (stats == null){
+            return orderMoves(board, dest, offset);
+        }
+        long begin = System.nanoTime();
+        int count = orderMoves(board, dest, offset);
+        stats.neighborNanos += System.nanoTime() - begin;
+        stats.expansions += 1;
+        return count;
+    }
+
+    /**
+     * writes the moves of the working copy and sorts them into the order they should be tried
+     * @param board the working copy
+     * @param dest array to write the moves into
+     * @param offset index of the first move to write
+     * @return number of moves written
+     */
+    private int orderMoves(MutableConfiguration board, int[] dest, int offset){
+        int count = board.moves(dest, offset);
+        if (order == MoveOrder.NATURAL || count < 2){
+            return count;
+        }
+        for (int i = 0; i < count; i++){
+            board.apply(dest[offset + i]);
+            //negated for most replies first, so both orders sort ascending
+            replies[i] = order == MoveOrder.MOST_REPLIES ? -board.moves(scratch, 0) : board.moves(scratch, 0);
+            board.undo(dest[offset + i]);
+        }
+        //insertion sort, so moves with the same number of replies keep their order
+        for (int i = 1; i < count; i++){
+            int move = dest[offset + i];
+            int reply = replies[i];
+            int j = i - 1;
+            while (j >= 0 && replies[j] > reply){
+                dest[offset + j + 1] = dest[offset + j];
+                replies[j + 1] = replies[j];
+                j -= 1;
+            }
+            dest[offset + j + 1] = move;
+            replies[j + 1] = reply;
+        }
+        return count;
+    }
+
+    /**
+     * builds the path to the goal by making the moves of the current path on a fresh copy of the start
+     * @param start the starting configuration
+     * @param moves the move lists of the path
+     * @param next for each depth, one past the move that was made
+     * @param width room for moves at each depth
+     * @param length number of moves on the path
+     * @return the path, starting with the start
+     */
+    protected List<Configuration> replay(MutableConfiguration start, int[] moves, int[] next, int width, int length){
+        List<Configuration> path = new ArrayList<>();
+        path.add(start);
+        MutableConfiguration board = start.mutableCopy();
+        for (int depth = 0; depth < length; depth++){
+            board.apply(moves[depth * width + next[depth] - 1]);
+            path.add(board.snapshot());
+        }
+        return path;
+    }
+}
@@ -0,0 +1,31 @@
+package puzzles.common.solver;
+
+/**
+ * Optional capability for configurations that can be packed into a few longs and rebuilt from
+ * them. The {@link CompactSolver} keeps only these encodings instead of whole configurations.
+ * @author Christopher Rose
+ */
+public interface EncodableConfiguration extends Configuration {
+    /**
+     * gets the number of longs in the encoding. It must be the same for every configuration
+     * that can be reached from this one
+     * @return encoding length
+     */
+    int encodedLength();
+
+    /**
+     * writes the encoding of this configuration. Two configurations must have the same encoding
+     * exactly when they are equal
+     * @param dest array to write into
+     * @param offset index of the first long to write
+     */
+    void encode(long[] dest, int offset);
+
+    /**
+     * rebuilds a configuration of the same puzzle as this one from its encoding
+     * @param src array holding the encoding
+     * @param offset index of the first long of the encoding
+     * @return the decoded configuration
+     */
+    Configuration decode(long[] src, int offset);
+}
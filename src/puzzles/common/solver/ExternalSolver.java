@@ -0,0 +1,455 @@
+package puzzles.common.solver;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * External memory BFS solver for state spaces that do not fit in memory even when encoded.
+ * Every depth layer is written to its own file as encoded states sorted by their longs, each
+ * followed by the position of its parent in the previous layer's file. The next layer is made by
+ * collecting successors in a fixed size buffer, sorting full buffers into run files, and merging
+ * the runs while dropping duplicates and anything already seen. Everything seen so far is kept in
+ * one more sorted file, which each new layer is merged into, so checking a layer against all the
+ * earlier ones is a single pass over a single file. A {@link MonotoneConfiguration} can never reach
+ * a config from an earlier layer, so it skips that file. Apart from the buffer, all the work is
+ * sequential reads and writes; only the final path is read back with seeks. Configurations that
+ * are not {@link EncodableConfiguration}s are solved by the plain BFS.
+ * @author Christopher Rose
+ */
+public class ExternalSolver extends Solver {
+    /** size of the read and write buffers of the layer and run files */
+    private static final int IO_BUFFER = 1 << 16;
+
+    private final Path directory;
+    private final long bufferBytes;
+    private int width;
+    private int stride;
+    /** most states in one layer file, the closest thing to a visited set this search has */
+    private long peakLayer;
+    private Path workDirectory;
+
+    /**
+     * ExternalSolver constructor
+     * @param directory directory to keep the layer files in, they are removed after each search
+     * @param bufferBytes bytes of successors to collect before sorting them into a run
+     */
+    public ExternalSolver(Path directory, long bufferBytes){
+        super();
+        this.directory = directory;
+        this.bufferBytes = bufferBytes;
+    }
+
+    /**
+     * Uses a disk based BFS to find the shortest path to the goal. The counters are counted the
+     * same way as in {@link Solver#getSolution(Configuration)}: when the goal turns up part way
+     * through a layer, the new configs generated before it in that layer are merged and counted
+     * too. The configs of a layer are expanded in the order of their encodings rather than the
+     * order they were found in, though, so unless the goal is the first thing generated in its
+     * layer or the whole layer gets generated, the counts can differ from the plain BFS, and so
+     * can which of several shortest paths is found. In the statistics, merging the runs counts as
+     * visited set lookups and the peak visited size is the largest layer.
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     * @throws UncheckedIOException if the layer files cannot be written or read
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        if (!(start instanceof EncodableConfiguration)){
+            return super.getSolution(start);
+        }
+        EncodableConfiguration encoder = (EncodableConfiguration) start;
+        width = encoder.encodedLength();
+        //each record is the state followed by its parent's position in the previous layer
+        stride = width + 1;
+        configs = 1;
+        uniqueConfigs = 1;
+        startSearch(start);
+        if (start.isSolution()){
+            return finishSearch(new ArrayList<>(List.of(start)), 1);
+        }
+        try {
+            Files.createDirectories(directory);
+            workDirectory = Files.createTempDirectory(directory, "bfs-");
+            try {
+                return finishSearch(search(encoder), peakLayer);
+            } finally {
+                deleteWorkDirectory();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("External search failed in " + directory, e);
+        }
+    }
+
+    /**
+     * runs the layer by layer search
+     * @param encoder the start config
+     * @return the path, or an empty list if there is none
+     * @throws IOException if a file cannot be written or read
+     */
+    private List<Configuration> search(EncodableConfiguration encoder) throws IOException {
+        long[] record = new long[stride];
+        ((EncodableConfiguration) key((Configuration) encoder)).encode(record, 0);
+        record[width] = -1;
+        try (DataOutputStream out = writer(layerFile(0))){
+            writeRecord(out, record, 0);
+        }
+        //every state seen so far, sorted, or null when no state can be seen twice across layers
+        Path visited = null;
+        if (!(encoder instanceof MonotoneConfiguration)){
+            visited = workDirectory.resolve("visited-0.bin");
+            try (DataOutputStream out = writer(visited)){
+                writeState(out, record, 0);
+            }
+        }
+
+        int capacity = (int) Math.max(1, Math.min(bufferBytes / (stride * 8L), Integer.MAX_VALUE / stride));
+        long[] buffer = new long[capacity * stride];
+        long layerSize = 1;
+        peakLayer = 1;
+        for (int depth = 0; layerSize > 0; depth++){
+            checkpoint(depth);
+            List<Path> runs = new ArrayList<>();
+            int buffered = 0;
+            try (DataInputStream in = reader(layerFile(depth))){
+                for (long index = 0; index < layerSize; index++){
+                    readRecord(in, record);
+                    for (Configuration nbr: neighbors(encoder.decode(record, 0))){
+                        configs += 1;
+                        if (nbr.isSolution()){
+                            //a goal in an earlier layer would have ended the search there, so it is
+                            //new, and the new configs before it in this layer are counted as well
+                            if (buffered > 0){
+                                runs.add(writeRun(buffer, buffered, runs.size()));
+                            }
+                            long lookup = lookupStart();
+                            long partial = mergeRuns(runs, depth + 1, visited) + 1;
+                            lookupEnd(lookup);
+                            uniqueConfigs += partial;
+                            discovered(depth + 1, partial);
+                            List<Configuration> path = constructPath(encoder, depth, index);
+                            path.add(nbr);
+                            return orient((Configuration) encoder, path);
+                        }
+                        int base = buffered * stride;
+                        ((EncodableConfiguration) key(nbr)).encode(buffer, base);
+                        buffer[base + width] = index;
+                        buffered += 1;
+                        if (buffered == capacity){
+                            runs.add(writeRun(buffer, buffered, runs.size()));
+                            buffered = 0;
+                        }
+                    }
+                }
+            }
+            if (buffered > 0){
+                runs.add(writeRun(buffer, buffered, runs.size()));
+            }
+            long lookup = lookupStart();
+            layerSize = mergeRuns(runs, depth + 1, visited);
+            if (visited != null){
+                visited = mergeVisited(visited, depth + 1);
+            }
+            lookupEnd(lookup);
+            uniqueConfigs += layerSize;
+            discovered(depth + 1, layerSize);
+            peakLayer = Math.max(peakLayer, layerSize);
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * sorts the buffered successors and writes them to a run file, dropping duplicates
+     * @param buffer the successor records
+     * @param count number of records in the buffer
+     * @param number number of the run within this layer
+     * @return the run file
+     * @throws IOException if the file cannot be written
+     */
+    private Path writeRun(long[] buffer, int count, int number) throws IOException {
+        sort(buffer, count);
+        Path run = workDirectory.resolve("run-" + number + ".bin");
+        try (DataOutputStream out = writer(run)){
+            for (int i = 0; i < count; i++){
+                if (i == 0 || compare(buffer, i * stride, buffer, (i - 1) * stride) != 0){
+                    writeRecord(out, buffer, i * stride);
+                }
+            }
+        }
+        return run;
+    }
+
+    /**
+     * merges the sorted runs into the next layer's file, keeping one record per state and only
+     * states that have not been seen before
+     * @param runs the run files, deleted once merged
+     * @param depth depth of the layer being made
+     * @param visited sorted file of the states seen so far, null to keep every state
+     * @return number of states in the new layer
+     * @throws IOException if a file cannot be written or read
+     */
+    private long mergeRuns(List<Path> runs, int depth, Path visited) throws IOException {
+        List<RecordReader> readers = new ArrayList<>();
+        long written = 0;
+        try {
+            PriorityQueue<RecordReader> merge = new PriorityQueue<>(
+                    (a, b) -> compare(a.record, 0, b.record, 0));
+            for (Path run: runs){
+                RecordReader reader = new RecordReader(run, stride);
+                readers.add(reader);
+                if (reader.next()){
+                    merge.add(reader);
+                }
+            }
+            RecordReader seen = null;
+            if (visited != null){
+                RecordReader reader = new RecordReader(visited, width);
+                readers.add(reader);
+                if (reader.next()){
+                    seen = reader;
+                }
+            }
+
+            long[] previous = null;
+            try (DataOutputStream out = writer(layerFile(depth))){
+                while (!merge.isEmpty()){
+                    RecordReader smallest = merge.poll();
+                    long[] record = smallest.record.clone();
+                    if (smallest.next()){
+                        merge.add(smallest);
+                    }
+                    if (previous != null && compare(previous, 0, record, 0) == 0){
+                        continue;
+                    }
+                    previous = record;
+                    if (seen == null || !isSeen(seen, record)){
+                        writeRecord(out, record, 0);
+                        written += 1;
+                    }
+                }
+            }
+        } finally {
+            for (RecordReader reader: readers){
+                reader.close();
+            }
+            for (Path run: runs){
+                Files.deleteIfExists(run);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * checks a state against the sorted file of seen states, moving its reader up to it. The
+     * states are checked in increasing order, so the reader never has to go back.
+     * @param seen reader of the seen states, left on its last record once it runs out
+     * @param record the state to check
+     * @return true if the state has been seen
+     * @throws IOException if the file cannot be read
+     */
+    private boolean isSeen(RecordReader seen, long[] record) throws IOException {
+        int order = compare(seen.record, 0, record, 0);
+        while (order < 0 && seen.next()){
+            order = compare(seen.record, 0, record, 0);
+        }
+        return order == 0;
+    }
+
+    /**
+     * merges a new layer into the sorted file of seen states. The layer only has states that were
+     * not seen yet, so the two never share a state.
+     * @param visited the seen states, deleted once merged
+     * @param depth depth of the new layer
+     * @return the file of seen states including the new layer
+     * @throws IOException if a file cannot be written or read
+     */
+    private Path mergeVisited(Path visited, int depth) throws IOException {
+        Path merged = workDirectory.resolve("visited-" + depth + ".bin");
+        try (RecordReader seen = new RecordReader(visited, width);
+             RecordReader layer = new RecordReader(layerFile(depth), stride);
+             DataOutputStream out = writer(merged)){
+            boolean seenLeft = seen.next();
+            boolean layerLeft = layer.next();
+            while (seenLeft || layerLeft){
+                if (!layerLeft || seenLeft && compare(seen.record, 0, layer.record, 0) < 0){
+                    writeState(out, seen.record, 0);
+                    seenLeft = seen.next();
+                } else {
+                    writeState(out, layer.record, 0);
+                    layerLeft = layer.next();
+                }
+            }
+        }
+        Files.delete(visited);
+        return merged;
+    }
+
+    /**
+     * constructs the path to a state by reading back each parent from its layer file
+     * @param encoder any config of the puzzle, used to decode the states
+     * @param depth layer of the last state of the path
+     * @param index position of that state in its layer file
+     * @return the path from the start to that state
+     * @throws IOException if a layer file cannot be read
+     */
+    private List<Configuration> constructPath(EncodableConfiguration encoder, int depth, long index)
+            throws IOException {
+        List<Configuration> path = new ArrayList<>();
+        long[] record = new long[stride];
+        for (int d = depth; d >= 0; d--){
+            try (RandomAccessFile file = new RandomAccessFile(layerFile(d).toFile(), "r")){
+                file.seek(index * stride * 8);
+                for (int i = 0; i < stride; i++){
+                    record[i] = file.readLong();
+                }
+            }
+            path.add(encoder.decode(record, 0));
+            index = record[width];
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * sorts records in place by their states, using heapsort so no extra memory is needed
+     * @param records the records
+     * @param count number of records
+     */
+    private void sort(long[] records, int count){
+        for (int i = count / 2 - 1; i >= 0; i--){
+            siftDown(records, i, count);
+        }
+        for (int end = count - 1; end > 0; end--){
+            swap(records, 0, end);
+            siftDown(records, 0, end);
+        }
+    }
+
+    private void siftDown(long[] records, int node, int count){
+        while (true){
+            int largest = node;
+            int left = 2 * node + 1;
+            int right = left + 1;
+            if (left < count && compare(records, left * stride, records, largest * stride) > 0){
+                largest = left;
+            }
+            if (right < count && compare(records, right * stride, records, largest * stride) > 0){
+                largest = right;
+            }
+            if (largest == node){
+                return;
+            }
+            swap(records, node, largest);
+            node = largest;
+        }
+    }
+
+    private void swap(long[] records, int a, int b){
+        for (int i = 0; i < stride; i++){
+            long held = records[a * stride + i];
+            records[a * stride + i] = records[b * stride + i];
+            records[b * stride + i] = held;
+        }
+    }
+
+    /**
+     * orders two records by the longs of their states
+     * @return negative, zero or positive like a comparator
+     */
+    private int compare(long[] a, int aStart, long[] b, int bStart){
+        for (int i = 0; i < width; i++){
+            int order = Long.compare(a[aStart + i], b[bStart + i]);
+            if (order != 0){
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    private Path layerFile(int depth){
+        return workDirectory.resolve("layer-" + depth + ".bin");
+    }
+
+    private void readRecord(DataInputStream in, long[] record) throws IOException {
+        for (int i = 0; i < record.length; i++){
+            record[i] = in.readLong();
+        }
+    }
+
+    private void writeRecord(DataOutputStream out, long[] records, int start) throws IOException {
+        for (int i = 0; i < stride; i++){
+            out.writeLong(records[start + i]);
+        }
+    }
+
+    private void writeState(DataOutputStream out, long[] records, int start) throws IOException {
+        for (int i = 0; i < width; i++){
+            out.writeLong(records[start + i]);
+        }
+    }
+
+    private static DataOutputStream writer(Path file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER));
+    }
+
+    private static DataInputStream reader(Path file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file), IO_BUFFER));
+    }
+
+    /**
+     * removes the layer files of the last search
+     * @throws IOException if they cannot be listed
+     */
+    private void deleteWorkDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(workDirectory)){
+            for (Path file: (Iterable<Path>) files::iterator){
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(workDirectory);
+    }
+
+    /**
+     * Reads the records of a sorted file one at a time
+     */
+    private class RecordReader implements Closeable {
+        private final DataInputStream in;
+        private final long records;
+        private long read;
+        final long[] record;
+
+        /**
+         * RecordReader constructor
+         * @param file the file
+         * @param length number of longs in each record
+         * @throws IOException if the file cannot be opened
+         */
+        RecordReader(Path file, int length) throws IOException {
+            this.in = reader(file);
+            this.records = Files.size(file) / (length * 8L);
+            this.read = 0;
+            this.record = new long[length];
+        }
+
+        /**
+         * moves on to the next record
+         * @return false if there were no records left
+         * @throws IOException if the file cannot be read
+         */
+        boolean next() throws IOException {
+            if (read == records){
+                return false;
+            }
+            readRecord(in, record);
+            read += 1;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * State store made of plain arrays on the heap. The states are packed one after another in a
+ * single long array, and an open addressing table of ints finds them by hash, so there is no
+ * object per state at all.
+ * @author Christopher Rose
+ */
+public class HeapStateStore implements StateStore {
+    private static final int INITIAL_CAPACITY = 1024;
+    /** the hash table has twice as many slots as states and must stay a valid array size */
+    private static final int MAX_CAPACITY = 1 << 29;
+    /** largest array the VM will reliably allocate */
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private final int width;
+    /** most states this store can hold, so that their longs still fit in one array */
+    private final int maxCapacity;
+    private long[] states;
+    private int[] parents;
+    /** hash table of state ids plus one, zero means the slot is free */
+    private int[] slots;
+    private int size;
+
+    /**
+     * HeapStateStore constructor
+     * @param width number of longs in each encoded state
+     * @throws IllegalArgumentException if the width is negative or a state would not fit in an array
+     */
+    public HeapStateStore(int width){
+        if (width < 0 || width > MAX_ARRAY_LENGTH){
+            throw new IllegalArgumentException("Bad state width: " + width);
+        }
+        this.width = width;
+        //a power of two, so the hash table can keep doubling up to it
+        this.maxCapacity = width == 0 ? MAX_CAPACITY
+                : Integer.highestOneBit(Math.min(MAX_CAPACITY, MAX_ARRAY_LENGTH / width));
+        int capacity = Math.min(INITIAL_CAPACITY, maxCapacity);
+        this.states = new long[capacity * width];
+        this.parents = new int[capacity];
+        this.slots = new int[capacity * 2];
+        this.size = 0;
+    }
+
+    /**
+     * adds a state if it is not in the store yet, growing the arrays when they are full
+     * @param state array holding the encoded state
+     * @param offset index of the first long of the state
+     * @param parent id of the state it was reached from, or -1 for the start
+     * @return the new state's id, or -1 if it was already in the store
+     */
+    @Override
+    public int add(long[] state, int offset, int parent){
+        int mask = slots.length - 1;
+        int slot = hash(state, offset, width) & mask;
+        while (slots[slot] != 0){
+            if (matches(slots[slot] - 1, state, offset)){
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (size == parents.length){
+            grow();
+            return add(state, offset, parent);
+        }
+        int id = size++;
+        System.arraycopy(state, offset, states, id * width, width);
+        parents[id] = parent;
+        slots[slot] = id + 1;
+        return id;
+    }
+
+    /**
+     * looks up the id of a state
+     * @param state array holding the encoded state
+     * @param offset index of the first long of the state
+     * @return the state's id, or -1 if it is not in the store
+     */
+    @Override
+    public int find(long[] state, int offset){
+        int mask = slots.length - 1;
+        int slot = hash(state, offset, width) & mask;
+        while (slots[slot] != 0){
+            if (matches(slots[slot] - 1, state, offset)){
+                return slots[slot] - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * copies a stored state out of the store
+     * @param id the state's id
+     * @param dest array to copy into
+     * @param offset index of the first long to write
+     */
+    @Override
+    public void get(int id, long[] dest, int offset){
+        System.arraycopy(states, id * width, dest, offset, width);
+    }
+
+    /**
+     * gets the id of the state a state was reached from
+     * @param id the state's id
+     * @return the parent's id, or -1 for the start
+     */
+    @Override
+    public int parent(int id){
+        return parents[id];
+    }
+
+    /**
+     * gets the number of states in the store
+     * @return state count
+     */
+    @Override
+    public int size(){
+        return size;
+    }
+
+    /**
+     * drops the arrays so they can be garbage collected
+     */
+    @Override
+    public void close(){
+        states = null;
+        parents = null;
+        slots = null;
+    }
+
+    /**
+     * checks if a stored state is the same as the given one
+     * @param id stored state's id
+     * @param state array holding the other state
+     * @param offset index of the other state's first long
+     * @return true or false
+     */
+    private boolean matches(int id, long[] state, int offset){
+        int base = id * width;
+        for (int i = 0; i < width; i++){
+            if (states[base + i] != state[offset + i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * doubles the capacity of the store and rebuilds the hash table
+     * @throws IllegalStateException if the store is already as big as it can get
+     */
+    private void grow(){
+        if (parents.length > maxCapacity / 2){
+            throw new IllegalStateException("State store is full: " + size + " states");
+        }
+        int capacity = parents.length * 2;
+        states = Arrays.copyOf(states, capacity * width);
+        parents = Arrays.copyOf(parents, capacity);
+        slots = new int[capacity * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++){
+            int slot = hash(states, id * width, width) & mask;
+            while (slots[slot] != 0){
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * mixes the longs of an encoded state into a well spread hash
+     * @param state array holding the state
+     * @param offset index of the state's first long
+     * @param width number of longs in the state
+     * @return the hash
+     */
+    public static int hash(long[] state, int offset, int width){
+        long h = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < width; i++){
+            h = (h ^ state[offset + i]) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        h *= 0x94D049BB133111EBL;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,16 @@
+package puzzles.common.solver;
+
+/**
+ * Optional capability for configurations that can estimate how far they are from the goal.
+ * Used by the informed engines {@link AStarSolver} and {@link IDAStarSolver}.
+ * @author Christopher Rose
+ */
+public interface HeuristicConfiguration extends Configuration {
+    /**
+     * estimates the number of moves left to reach the goal. The estimate must never be more than
+     * the real number of moves (admissible), and should change by at most one per move
+     * (consistent), otherwise the engines can return a path that is not the shortest
+     * @return lower bound on the number of moves to the goal
+     */
+    int estimate();
+}
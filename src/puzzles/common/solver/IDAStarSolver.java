@@ -0,0 +1,89 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * Iterative deepening A* solver. Runs depth first searches that are cut off once moves made plus
+ * the estimate from {@link HeuristicConfiguration} goes over a bound, raising the bound to the
+ * smallest value that was cut off until the goal is found. Only the current path is kept in
+ * memory, so it works on puzzles whose visited set would not fit in the heap.
+ * @author Christopher Rose
+ */
+public class IDAStarSolver extends Solver {
+
+    /**
+     * IDAStarSolver constructor
+     */
+    public IDAStarSolver(){
+        super();
+    }
+
+    /**
+     * Uses IDA* to find the shortest path to the goal. There is no visited set, so configs are only
+     * checked against the current path, and the unique configs counter holds the configs
+     * generated by the last iteration. In the statistics the depth counts are configs put on the
+     * path at each depth over all iterations, and the peak visited size is the longest path.
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        configs = 1;
+        uniqueConfigs = 1;
+        startSearch(start);
+        List<Configuration> path = new ArrayList<>();
+        path.add(start);
+        if (start.isSolution()){
+            return finishSearch(path, 1);
+        }
+        int longest = 1;
+
+        int bound = AStarSolver.estimate(start);
+        while (true){
+            long iterationConfigs = 1;
+            int nextBound = Integer.MAX_VALUE;
+            Set<Configuration> onPath = new HashSet<>(path);
+            //the neighbors still to be tried for every config on the path
+            Deque<Iterator<Configuration>> pending = new ArrayDeque<>();
+            pending.push(neighbors(start).iterator());
+            while (!pending.isEmpty()){
+                Iterator<Configuration> nbrs = pending.peek();
+                if (!nbrs.hasNext()){
+                    pending.pop();
+                    onPath.remove(path.remove(path.size() - 1));
+                    continue;
+                }
+                Configuration nbr = nbrs.next();
+                checkpoint(path.size());
+                configs += 1;
+                iterationConfigs += 1;
+                long lookup = lookupStart();
+                boolean repeated = onPath.contains(nbr);
+                lookupEnd(lookup);
+                if (repeated){
+                    continue;
+                }
+                int total = path.size() + AStarSolver.estimate(nbr);
+                if (total > bound){
+                    nextBound = Math.min(nextBound, total);
+                    continue;
+                }
+                discovered(path.size());
+                path.add(nbr);
+                longest = Math.max(longest, path.size());
+                if (nbr.isSolution()){
+                    uniqueConfigs = iterationConfigs;
+                    return finishSearch(path, longest);
+                }
+                onPath.add(nbr);
+                pending.push(neighbors(nbr).iterator());
+            }
+            uniqueConfigs = iterationConfigs;
+            if (nextBound == Integer.MAX_VALUE){
+                return finishSearch(path, longest);
+            }
+            bound = nextBound;
+            path.add(start);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package puzzles.common.solver;
+
+import java.util.*;
+
+/**
+ * BFS for {@link MonotoneConfiguration}s that only keeps two layers of configs at a time. Every
+ * move lowers the rank by one, so a config can only be reached from the layer just before its
+ * own, and duplicates can only turn up within the layer being built. Each layer's visited set is
+ * dropped as soon as the next one is done.
+ * <p>
+ * For the path, every config only leaves behind a link to its parent: the parent's position in
+ * the layer before and which of the parent's neighbors it was, packed into one long. Once the goal
+ * is found the links are followed back to the start and the moves are made again from there,
+ * which gives the same configs the search found. Configurations that are not monotone are solved
+ * by the plain BFS.
+ * @author Christopher Rose
+ */
+public class LayeredSolver extends Solver {
+
+    /**
+     * LayeredSolver constructor
+     */
+    public LayeredSolver(){
+        super();
+    }
+
+    /**
+     * Uses a BFS that drops old layers to find the shortest path to the goal. The counters have
+     * the same meaning as in {@link Solver#getSolution(Configuration)}, and the peak visited size
+     * is the most configs held in two neighboring layers.
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        if (!(start instanceof MonotoneConfiguration)){
+            return super.getSolution(start);
+        }
+        configs = 1;
+        uniqueConfigs = 1;
+        startSearch(start);
+        if (start.isSolution()){
+            return finishSearch(new ArrayList<>(List.of(start)), 1);
+        }
+        //links.get(d) has the parent links of the configs d + 1 moves from the start
+        List<long[]> links = new ArrayList<>();
+        List<Configuration> layer = new ArrayList<>(List.of(start));
+        long peak = 1;
+        for (int depth = 0; !layer.isEmpty(); depth++){
+            Expansion expansion = new Expansion(depth + 1);
+            for (int i = 0; i < layer.size() && expansion.goal < 0; i++){
+                checkpoint(depth);
+                expansion.parent = i;
+                expansion.ordinal = 0;
+                forEachNeighbor(layer.get(i), expansion);
+            }
+            peak = Math.max(peak, layer.size() + expansion.next.size());
+            links.add(Arrays.copyOf(expansion.links, expansion.next.size()));
+            if (expansion.goal >= 0){
+                return finishSearch(constructPath(start, links, expansion.goal), peak);
+            }
+            layer = expansion.next;
+        }
+        return finishSearch(new ArrayList<>(), peak);
+    }
+
+    /**
+     * constructs the path to the goal by following the parent links back to the start, and then
+     * making the recorded moves again from the start
+     * @param start the starting configuration
+     * @param links the parent links of each layer
+     * @param goal position of the goal in the last layer
+     * @return the path, starting with the start
+     */
+    protected List<Configuration> constructPath(Configuration start, List<long[]> links, int goal){
+        int[] ordinals = new int[links.size()];
+        int index = goal;
+        for (int depth = links.size() - 1; depth >= 0; depth--){
+            long link = links.get(depth)[index];
+            ordinals[depth] = (int) link;
+            index = (int) (link >>> 32);
+        }
+        List<Configuration> path = new ArrayList<>();
+        Configuration current = start;
+        path.add(current);
+        for (int ordinal: ordinals){
+            Iterator<Configuration> nbrs = current.getNeighbors().iterator();
+            for (int skipped = 0; skipped < ordinal; skipped++){
+                nbrs.next();
+            }
+            current = nbrs.next();
+            path.add(current);
+        }
+        return path;
+    }
+
+    /**
+     * Builds the next layer from the neighbors of the current one, and stops at the first goal
+     */
+    private class Expansion implements NeighborSink {
+        /** depth of the layer being built */
+        private final int depth;
+        /** the layer being built, and its visited set keyed by {@link #key(Configuration)} */
+        final List<Configuration> next;
+        private final Set<Configuration> seen;
+        /** parent position times 2^32 plus neighbor number, for each config in the layer */
+        long[] links;
+        /** position of the config being expanded in the current layer */
+        int parent;
+        /** number of the next neighbor of the config being expanded */
+        int ordinal;
+        /** position of the goal in the new layer, -1 until one is found */
+        int goal;
+
+        Expansion(int depth){
+            this.depth = depth;
+            this.next = new ArrayList<>();
+            this.seen = new HashSet<>();
+            this.links = new long[16];
+            this.goal = -1;
+        }
+
+        @Override
+        public boolean accept(Configuration nbr){
+            int number = ordinal++;
+            configs += 1;
+            long lookup = lookupStart();
+            boolean added = seen.add(key(nbr));
+            lookupEnd(lookup);
+            if (!added){
+                return true;
+            }
+            uniqueConfigs += 1;
+            discovered(depth);
+            if (next.size() == links.length){
+                links = Arrays.copyOf(links, links.length * 2);
+            }
+            links[next.size()] = ((long) parent << 32) | number;
+            next.add(nbr);
+            if (nbr.isSolution()){
+                goal = next.size() - 1;
+                return false;
+            }
+            return true;
+        }
+    }
+}
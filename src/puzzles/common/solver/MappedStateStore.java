@@ -0,0 +1,210 @@
+package puzzles.common.solver;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * State store kept in a memory mapped file instead of on the heap, so a search can visit more
+ * states than the heap holds and the garbage collector never has to look at them. The file is
+ * made with its full size up front, which costs no disk space until pages are written on file
+ * systems that support sparse files, and it is deleted as soon as it is mapped.
+ * The layout is the same as {@link HeapStateStore}: packed states, parent ids and an open
+ * addressing table of ids, each in its own region of the file.
+ * @author Christopher Rose
+ */
+public class MappedStateStore implements StateStore {
+    /** size of each mapped chunk, a single buffer can only cover 2GB */
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+    /** the table has twice as many slots as states and slot numbers must fit in an int */
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    private final int width;
+    private final int capacity;
+    private final int slotMask;
+    private final long limit;
+    private final long parentsStart;
+    private final long slotsStart;
+    private MappedByteBuffer[] chunks;
+    private int size;
+
+    /**
+     * MappedStateStore constructor, maps a new backing file
+     * @param directory directory to make the backing file in
+     * @param limit most bytes the file may take up
+     * @param width number of longs in each encoded state
+     * @throws UncheckedIOException if the file cannot be made or mapped
+     * @throws IllegalArgumentException if the limit is too small to hold any states
+     */
+    public MappedStateStore(Path directory, long limit, int width){
+        this.width = width;
+        this.limit = limit;
+        long bytesPerState = width * 8L + 4 + 2 * 4;
+        long states = Math.min(limit / bytesPerState, MAX_CAPACITY);
+        if (states < 1){
+            throw new IllegalArgumentException("Store limit of " + limit + " bytes is too small");
+        }
+        this.capacity = Integer.highestOneBit((int) states);
+        this.slotMask = capacity * 2 - 1;
+        this.parentsStart = (long) capacity * width * 8;
+        this.slotsStart = parentsStart + capacity * 4L;
+        long length = slotsStart + (slotMask + 1) * 4L;
+
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "visited-", ".bin");
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw");
+                 FileChannel channel = raf.getChannel()){
+                raf.setLength(length);
+                chunks = new MappedByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_BITS)];
+                for (int i = 0; i < chunks.length; i++){
+                    long position = (long) i << CHUNK_BITS;
+                    chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, position,
+                            Math.min(CHUNK_MASK + 1, length - position));
+                }
+            } finally {
+                //the mapping stays valid, this just makes sure nothing is left behind
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    file.toFile().deleteOnExit();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map visited store in " + directory, e);
+        }
+        this.size = 0;
+    }
+
+    /**
+     * adds a state if it is not in the store yet
+     * @param state array holding the encoded state
+     * @param offset index of the first long of the state
+     * @param parent id of the state it was reached from, or -1 for the start
+     * @return the new state's id, or -1 if it was already in the store
+     * @throws IllegalStateException if the store has reached its size limit
+     */
+    @Override
+    public int add(long[] state, int offset, int parent){
+        int slot = HeapStateStore.hash(state, offset, width) & slotMask;
+        int stored = getInt(slotsStart + slot * 4L);
+        while (stored != 0){
+            if (matches(stored - 1, state, offset)){
+                return -1;
+            }
+            slot = (slot + 1) & slotMask;
+            stored = getInt(slotsStart + slot * 4L);
+        }
+        if (size == capacity){
+            throw new IllegalStateException("Visited store limit of " + limit + " bytes reached after "
+                    + size + " states");
+        }
+        int id = size++;
+        long base = (long) id * width * 8;
+        for (int i = 0; i < width; i++){
+            putLong(base + i * 8L, state[offset + i]);
+        }
+        putInt(parentsStart + id * 4L, parent);
+        putInt(slotsStart + slot * 4L, id + 1);
+        return id;
+    }
+
+    /**
+     * looks up the id of a state
+     * @param state array holding the encoded state
+     * @param offset index of the first long of the state
+     * @return the state's id, or -1 if it is not in the store
+     */
+    @Override
+    public int find(long[] state, int offset){
+        int slot = HeapStateStore.hash(state, offset, width) & slotMask;
+        int stored = getInt(slotsStart + slot * 4L);
+        while (stored != 0){
+            if (matches(stored - 1, state, offset)){
+                return stored - 1;
+            }
+            slot = (slot + 1) & slotMask;
+            stored = getInt(slotsStart + slot * 4L);
+        }
+        return -1;
+    }
+
+    /**
+     * copies a stored state out of the store
+     * @param id the state's id
+     * @param dest array to copy into
+     * @param offset index of the first long to write
+     */
+    @Override
+    public void get(int id, long[] dest, int offset){
+        long base = (long) id * width * 8;
+        for (int i = 0; i < width; i++){
+            dest[offset + i] = getLong(base + i * 8L);
+        }
+    }
+
+    /**
+     * gets the id of the state a state was reached from
+     * @param id the state's id
+     * @return the parent's id, or -1 for the start
+     */
+    @Override
+    public int parent(int id){
+        return getInt(parentsStart + id * 4L);
+    }
+
+    /**
+     * gets the number of states in the store
+     * @return state count
+     */
+    @Override
+    public int size(){
+        return size;
+    }
+
+    /**
+     * drops the mapped buffers, the memory is given back once they are collected
+     */
+    @Override
+    public void close(){
+        chunks = null;
+    }
+
+    /**
+     * checks if a stored state is the same as the given one
+     * @param id stored state's id
+     * @param state array holding the other state
+     * @param offset index of the other state's first long
+     * @return true or false
+     */
+    private boolean matches(int id, long[] state, int offset){
+        long base = (long) id * width * 8;
+        for (int i = 0; i < width; i++){
+            if (getLong(base + i * 8L) != state[offset + i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long getLong(long position){
+        return chunks[(int) (position >>> CHUNK_BITS)].getLong((int) (position & CHUNK_MASK));
+    }
+
+    private void putLong(long position, long value){
+        chunks[(int) (position >>> CHUNK_BITS)].putLong((int) (position & CHUNK_MASK), value);
+    }
+
+    private int getInt(long position){
+        return chunks[(int) (position >>> CHUNK_BITS)].getInt((int) (position & CHUNK_MASK));
+    }
+
+    private void putInt(long position, int value){
+        chunks[(int) (position >>> CHUNK_BITS)].putInt((int) (position & CHUNK_MASK), value);
+    }
+}
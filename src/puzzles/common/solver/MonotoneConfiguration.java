@@ -0,0 +1,17 @@
+package puzzles.common.solver;
+
+/**
+ * Optional capability for puzzles where every move uses something up, like a piece captured or a
+ * frog jumped, so no config can ever be reached twice on one path and every solution from a
+ * config takes the same number of moves. A search does not have to look for the shortest
+ * solution of such a puzzle, since any solution it finds is as short as the others.
+ * @author Christopher Rose
+ */
+public interface MonotoneConfiguration extends Configuration {
+    /**
+     * gets the number of moves every solution from this config takes. Every move lowers it by
+     * exactly one, and a solution has rank zero
+     * @return the rank
+     */
+    int rank();
+}
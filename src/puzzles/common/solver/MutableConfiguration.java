@@ -0,0 +1,52 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that can make and unmake moves in place. A depth first search can then walk
+ * the whole tree with one working copy, instead of making a new configuration for every node.
+ * <p>
+ * Moves are ints whose meaning is up to the configuration. {@link #moves(int[], int)} lists the
+ * moves of the current state in the same order as {@link #getNeighbors()}, and a listed move can
+ * be applied and then undone to get back exactly the state it was listed in. A working copy
+ * changes, so it must never be used as a key in a collection; {@link #snapshot()} gives an
+ * unchanging copy for that.
+ * @author Christopher Rose
+ */
+public interface MutableConfiguration extends Configuration {
+    /**
+     * makes a working copy of this config that apply and undo may change without affecting it
+     * @return the working copy
+     */
+    MutableConfiguration mutableCopy();
+
+    /**
+     * gets an upper bound on the number of moves from any state of this puzzle
+     * @return most moves {@link #moves(int[], int)} can list
+     */
+    int maxMoves();
+
+    /**
+     * lists the moves of the current state
+     * @param dest array to write the moves into, with room for {@link #maxMoves()} of them
+     * @param offset index of the first move to write
+     * @return number of moves written
+     */
+    int moves(int[] dest, int offset);
+
+    /**
+     * makes a move listed by {@link #moves(int[], int)} for the current state
+     * @param move the move
+     */
+    void apply(int move);
+
+    /**
+     * takes back the last move applied
+     * @param move the move, as passed to {@link #apply(int)}
+     */
+    void undo(int move);
+
+    /**
+     * makes an unchanging copy of the current state
+     * @return the copy
+     */
+    Configuration snapshot();
+}
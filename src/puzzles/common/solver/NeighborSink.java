@@ -0,0 +1,30 @@
+package puzzles.common.solver;
+
+/**
+ * Receives the neighbors of a {@link StreamingConfiguration} one at a time, as they are made.
+ * Configurations that can be encoded offer each neighbor's encoding first, so a search that keeps
+ * its visited set as encodings can turn down a neighbor it has already seen before any object
+ * is made for it. Every neighbor is either turned down by {@link #offer(long[], int)} or passed
+ * to {@link #accept(Configuration)}, never both.
+ * @author Christopher Rose
+ */
+@FunctionalInterface
+public interface NeighborSink {
+    /**
+     * offered the encoding of a neighbor before the neighbor is built. Only configurations that
+     * are {@link EncodableConfiguration}s call this.
+     * @param encoding array holding the neighbor's encoding, only valid during the call
+     * @param offset index of the first long of the encoding
+     * @return true to have the neighbor built and accepted, false to skip it
+     */
+    default boolean offer(long[] encoding, int offset){
+        return true;
+    }
+
+    /**
+     * receives a neighbor
+     * @param neighbor the neighbor
+     * @return true to keep going, false to stop making neighbors
+     */
+    boolean accept(Configuration neighbor);
+}
@@ -0,0 +1,151 @@
+package puzzles.common.solver;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Level-synchronous BFS solver. Every depth layer is split across a fork/join pool and the
+ * next layer is only started once the whole current one has been expanded, so the path that
+ * is found is still a shortest one.
+ * @author Christopher Rose
+ */
+public class ParallelSolver extends Solver {
+    /** layers are split until a task has at most this many configs to expand */
+    private static final int SPLIT_THRESHOLD = 64;
+
+    private final int threads;
+    private Map<Configuration, Configuration> predecessors;
+    private AtomicReference<Configuration> goal;
+    private LongAdder generated;
+    private LongAdder inserted;
+    private LongAdder expanded;
+
+    /**
+     * ParallelSolver constructor
+     * @param threads number of worker threads to expand each layer with
+     */
+    public ParallelSolver(int threads){
+        super();
+        if (threads < 1){
+            throw new IllegalArgumentException("threads must be at least 1: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Uses a parallel BFS to find the shortest path to the goal. The counters have the same meaning
+     * as in {@link Solver#getSolution(Configuration)}, but once a goal is seen the other workers stop
+     * at their next config, so the exact totals can vary a little from run to run. The statistics
+     * have the layer sizes, totals and number of expansions, but the time is not split up, since it
+     * is spent on several threads at once.
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        configs = 1;
+        uniqueConfigs = 1;
+        startSearch(start);
+        predecessors = new ConcurrentHashMap<>();
+        predecessors.put(key(start), start);
+        if (start.isSolution()){
+            return finishSearch(constructPath(predecessors, start), 1);
+        }
+        goal = new AtomicReference<>();
+        generated = new LongAdder();
+        inserted = new LongAdder();
+        expanded = new LongAdder();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Configuration> layer = List.of(start);
+            int depth = 0;
+            while (!layer.isEmpty() && goal.get() == null){
+                checkpoint(depth);
+                layer = pool.invoke(new LayerTask(layer.toArray(new Configuration[0]), 0, layer.size()));
+                depth += 1;
+                discovered(depth, layer.size() + (goal.get() == null ? 0 : 1));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        configs += generated.sum();
+        uniqueConfigs += inserted.sum();
+        if (stats != null){
+            stats.expansions = expanded.sum();
+        }
+
+        List<Configuration> path = goal.get() == null ? new ArrayList<>() : constructPath(predecessors, goal.get());
+        long visited = predecessors.size();
+        predecessors = null;
+        return finishSearch(path, visited);
+    }
+
+    /**
+     * gets the number of worker threads
+     * @return thread count
+     */
+    public int getThreads(){
+        return threads;
+    }
+
+    /**
+     * Expands a slice of the current layer and returns the configs it added to the next one
+     */
+    private class LayerTask extends RecursiveTask<List<Configuration>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Configuration[] layer;
+        private final int from;
+        private final int to;
+
+        LayerTask(Configuration[] layer, int from, int to){
+            this.layer = layer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Configuration> compute(){
+            if (to - from > SPLIT_THRESHOLD){
+                int middle = (from + to) >>> 1;
+                LayerTask left = new LayerTask(layer, from, middle);
+                left.fork();
+                List<Configuration> right = new LayerTask(layer, middle, to).compute();
+                List<Configuration> next = left.join();
+                next.addAll(right);
+                return next;
+            }
+            List<Configuration> next = new ArrayList<>();
+            long seen = 0;
+            long added = 0;
+            long expansions = 0;
+            for (int i = from; i < to && goal.get() == null; i++){
+                Configuration current = layer[i];
+                if (isDeadEnd(current)){
+                    continue;
+                }
+                expansions += 1;
+                for (Configuration nbr: current.getNeighbors()){
+                    seen += 1;
+                    if (predecessors.putIfAbsent(key(nbr), current) == null){
+                        added += 1;
+                        if (nbr.isSolution()){
+                            goal.compareAndSet(null, nbr);
+                            break;
+                        }
+                        next.add(nbr);
+                    }
+                }
+            }
+            generated.add(seen);
+            inserted.add(added);
+            expanded.add(expansions);
+            return next;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package puzzles.common.solver;
+
+/**
+ * Receives progress reports from a running search. Reports are made on the searching thread, a few
+ * times a second at most, so a listener that updates a user interface has to hand the values over
+ * to that interface's own thread.
+ * @author Christopher Rose
+ */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * called while a search is running
+     * @param depth depth the search has reached, in moves from the start
+     * @param configs configs generated so far
+     * @param uniqueConfigs unique configs generated so far
+     */
+    void progress(int depth, long configs, long uniqueConfigs);
+}
@@ -0,0 +1,223 @@
+package puzzles.common.solver;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Solutions saved on disk between runs. Each entry is a file named after the SHA-256 of a key
+ * that identifies the puzzle, and holds the key itself, the search statistics and the solution
+ * path as encoded states. Once the files add up to more than the size limit, the ones used
+ * least recently are deleted.
+ * @author Christopher Rose
+ */
+public class SolutionCache {
+    private static final int MAGIC = 0x534F4C32;
+    private static final String EXTENSION = ".sol";
+
+    private final Path directory;
+    private final long limit;
+
+    /**
+     * A saved solution
+     * @param configs configs generated by the search that found it
+     * @param uniqueConfigs unique configs generated by that search
+     * @param nanos how long that search took
+     * @param width number of longs in each encoded state of the path
+     * @param path the encoded path, empty if the puzzle has no solution
+     */
+    public record Entry(long configs, long uniqueConfigs, long nanos, int width, long[] path) {
+        /**
+         * gets the number of configs in the path
+         * @return path length
+         */
+        public int length(){
+            return width == 0 ? 0 : path.length / width;
+        }
+    }
+
+    /**
+     * SolutionCache constructor
+     * @param directory directory the entries are kept in, made when the first entry is saved
+     * @param limit most bytes the entries may take up together
+     */
+    public SolutionCache(Path directory, long limit){
+        this.directory = directory;
+        this.limit = limit;
+    }
+
+    /**
+     * looks up the solution saved for a key, marking it as recently used
+     * @param key the puzzle's key
+     * @return the entry, or null if there is none or it cannot be read
+     */
+    public Entry get(String key){
+        Path file = fileFor(key);
+        if (!Files.isRegularFile(file)){
+            return null;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))){
+            if (in.readInt() != MAGIC || !Arrays.equals(readBytes(in), keyBytes)){
+                return null;
+            }
+            long configs = in.readLong();
+            long uniqueConfigs = in.readLong();
+            long nanos = in.readLong();
+            int width = in.readInt();
+            int length = in.readInt();
+            //magic, key, three counts, width and length come before the path
+            long pathBytes = Files.size(file) - (4 + 4 + keyBytes.length + 3 * 8 + 4 + 4);
+            if (width < 0 || length < 0 || length > pathBytes / 8
+                    || (width == 0 ? length != 0 : length % width != 0)){
+                throw new IOException("Bad path of " + length + " longs with width " + width);
+            }
+            long[] path = new long[length];
+            for (int i = 0; i < path.length; i++){
+                path[i] = in.readLong();
+            }
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return new Entry(configs, uniqueConfigs, nanos, width, path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * saves the solution for a key, then evicts old entries if the cache is over its limit
+     * @param key the puzzle's key
+     * @param entry the solution
+     * @throws UncheckedIOException if the entry cannot be written
+     */
+    public void put(String key, Entry entry){
+        try {
+            Files.createDirectories(directory);
+            Path file = fileFor(key);
+            Path temporary = Files.createTempFile(directory, "entry-", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))){
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(MAGIC);
+                out.writeInt(keyBytes.length);
+                out.write(keyBytes);
+                out.writeLong(entry.configs());
+                out.writeLong(entry.uniqueConfigs());
+                out.writeLong(entry.nanos());
+                out.writeInt(entry.width());
+                out.writeInt(entry.path().length);
+                for (long word: entry.path()){
+                    out.writeLong(word);
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save solution in " + directory, e);
+        }
+    }
+
+    /**
+     * deletes the entry for a key, if there is one
+     * @param key the puzzle's key
+     */
+    public void remove(String key){
+        try {
+            Files.deleteIfExists(fileFor(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not remove solution from " + directory, e);
+        }
+    }
+
+    /**
+     * deletes the least recently used entries until the cache fits in its limit
+     * @throws IOException if the directory cannot be listed
+     */
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)){
+            files.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).forEach(entries::add);
+        }
+        long total = 0;
+        for (Path entry: entries){
+            total += size(entry);
+        }
+        if (total <= limit){
+            return;
+        }
+        entries.sort(Comparator.comparing(SolutionCache::lastModified));
+        for (Path entry: entries){
+            if (total <= limit){
+                break;
+            }
+            total -= size(entry);
+            Files.deleteIfExists(entry);
+        }
+    }
+
+    /**
+     * reads a byte array written as its length followed by its bytes
+     * @param in the stream
+     * @return the bytes
+     * @throws IOException if the stream cannot be read or the length is negative
+     */
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0){
+            throw new IOException("Bad length " + length);
+        }
+        //read in chunks, so a damaged length cannot make a huge array up front
+        return in.readNBytes(length);
+    }
+
+    /**
+     * gets the size of an entry, which is zero if another run has just evicted it
+     * @param file the entry
+     * @return size in bytes
+     */
+    private static long size(Path file){
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path file){
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * gets the file an entry is kept in
+     * @param key the puzzle's key
+     * @return the entry's file
+     */
+    private Path fileFor(String key){
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b: digest){
+                name.append(String.format("%02x", b));
+            }
+            return directory.resolve(name.append(EXTENSION).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package puzzles.common.solver;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * common solver class to be used in conjunction with the other puzzles
@@ -8,8 +9,24 @@ import java.util.*;
  */
 
 public class Solver {
-    private int configs;
-    private int uniqueConfigs;
+    /** shortest time between two progress reports */
+    private static final long REPORT_INTERVAL = 100_000_000L;
+    /** checkpoints between two looks at the clock */
+    private static final int CLOCK_CHECKS = 256;
+
+    protected long configs;
+    protected long uniqueConfigs;
+    /** statistics of the running or last search, null when they are not being collected */
+    protected SolverStats stats;
+    private ProgressListener listener;
+    private SolverListener searchListener;
+    private boolean collectStats;
+    private boolean symmetry;
+    private boolean pruning;
+    private SolverSearchEvent event;
+    private long searchStart;
+    private int checkpoints;
+    private long nextReport;
 
     /**
      * Solver constructor
@@ -17,79 +34,412 @@ public class Solver {
     public Solver(){
         this.configs = 0;
         this.uniqueConfigs = 0;
+        this.symmetry = true;
+        this.pruning = true;
     }
 
     /**
-     * Uses a BFS approach to find the shortest path to the goal of the puzzle currently being solved
+     * Uses a BFS approach to find the shortest path to the goal of the puzzle currently being solved.
+     * Neighbors are checked for the goal as soon as they are generated, so the search stops one
+     * layer earlier than checking on removal from the queue would. The counters are reset on every call.
      * @param start the starting configuration
-     * @return the shortest path to the solution
+     * @return the shortest path to the solution, or an empty list if there is none
+     * @throws CancellationException if the searching thread is interrupted
      */
     public Collection<Configuration> getSolution (Configuration start){
+        configs = 1;
+        uniqueConfigs = 1;
+        startSearch(start);
 
-        //creating the visitation queue
-        List<Configuration> queue = new LinkedList<>();
-        queue.add(start);
-        configs += 1;
-        uniqueConfigs += 1;
-
-        //creating the predecessor map
+        //creating the predecessor map, the start is its own predecessor
         Map<Configuration, Configuration> predecessors = new HashMap<>();
-        predecessors.put(start, start);
+        predecessors.put(key(start), start);
+        if (start.isSolution()){
+            return finishSearch(constructPath(predecessors, start), 1);
+        }
+
+        //creating the visitation queue, backed by a circular array
+        ArrayDeque<Configuration> queue = new ArrayDeque<>();
+        queue.add(start);
+        //the queue holds the rest of one layer followed by the start of the next
+        int depth = 0;
+        int layerLeft = 1;
+        int nextLayer = 0;
 
         while (!queue.isEmpty()){
-            Configuration current = queue.remove(0);
-            if (current.isSolution()){
-                break;
+            if (layerLeft == 0){
+                depth += 1;
+                layerLeft = nextLayer;
+                nextLayer = 0;
             }
-            //looping all the neighbors of the current config
-            for (Configuration nbr: current.getNeighbors()){
+            layerLeft -= 1;
+            checkpoint(depth);
+            Configuration current = queue.poll();
+            int queued = queue.size();
+            int nbrDepth = depth + 1;
+            //looping all the neighbors of the current config, stopping at a goal
+            forEachNeighbor(current, nbr -> {
                 configs += 1;
-                if (!predecessors.containsKey(nbr)){
+                long lookup = lookupStart();
+                boolean added = predecessors.putIfAbsent(key(nbr), current) == null;
+                lookupEnd(lookup);
+                if (added){
                     uniqueConfigs += 1;
-                    predecessors.put(nbr, current);
+                    discovered(nbrDepth);
                     queue.add(nbr);
+                    return !nbr.isSolution();
                 }
+                return true;
+            });
+            nextLayer += queue.size() - queued;
+            //a goal stops the expansion right after it is queued, so it can only be the last config
+            Configuration last = queue.peekLast();
+            if (queue.size() > queued && last.isSolution()){
+                return finishSearch(constructPath(predecessors, last), predecessors.size());
             }
         }
-        return constructPath(predecessors, start);
+        return finishSearch(new ArrayList<>(), predecessors.size());
     }
 
     /**
-     * constructs the path of the solution through using the predecessor map passed from the getSolution method
-     * @param predecessors predecessor map of the BFS
-     * @param start the starting configuration
-     * @return the shortest path in string form
+     * constructs the path of the solution by walking the predecessor map back from the goal
+     * @param predecessors predecessor map of the BFS, keyed by {@link #key(Configuration)}, where
+     * the start maps to itself
+     * @param end the goal configuration
+     * @return the shortest path, in order from the start to the goal
      */
     public List<Configuration> constructPath(Map<Configuration, Configuration> predecessors,
-                                      Configuration start){
-        //Creating the empty linkedlist for the path
-        List<Configuration> path = new LinkedList<>();
-
-        //checking if predecessor map contains the solution config
-        boolean hasSolution = false;
-        Configuration end = null;
-        for (Configuration config: predecessors.keySet()){
-            if (config.isSolution()){
-                hasSolution = true;
-                end = config;
+                                      Configuration end){
+        List<Configuration> path = new ArrayList<>();
+        Configuration currConfig = end;
+        Configuration prevConfig = predecessors.get(key(currConfig));
+        while (!prevConfig.equals(currConfig)) {
+            path.add(currConfig);
+            currConfig = prevConfig;
+            prevConfig = predecessors.get(key(currConfig));
+        }
+        path.add(currConfig);
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * checks that a path only makes legal moves, each config being a neighbor of the one before it
+     * @param path the path, in order from the start
+     * @return true if every step is a move
+     */
+    public static boolean isLegalPath(List<Configuration> path){
+        for (int step = 1; step < path.size(); step++){
+            if (!path.get(step - 1).getNeighbors().contains(path.get(step))){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * sets the listener that gets progress reports from searches
+     * @param listener the listener, or null for no reports
+     */
+    public void setProgressListener(ProgressListener listener){
+        this.listener = listener;
+    }
+
+    /**
+     * Gets the config a config is kept under in the visited set. A {@link SymmetricConfiguration}
+     * is kept under its canonical form, so its mirror images count as the same config. The map
+     * values are still the real configs that were expanded, so following them back gives real moves.
+     * @param config the config
+     * @return its key
+     */
+    protected Configuration key(Configuration config){
+        if (usesSymmetry(config)){
+            return ((SymmetricConfiguration) config).canonical();
+        }
+        return config;
+    }
+
+    /**
+     * checks if configs like this one are kept under their canonical form
+     * @param config the config
+     * @return true if {@link #key(Configuration)} may give a different config
+     */
+    protected boolean usesSymmetry(Configuration config){
+        return symmetry && config instanceof SymmetricConfiguration;
+    }
+
+    /**
+     * turns a path of configs that may be in any orientation into real moves from the start, by
+     * replacing each step with the neighbor of the step before it that has the same key
+     * @param start the starting configuration
+     * @param path the path, whose first config has the same key as the start
+     * @return the path in the start's orientation
+     */
+    protected List<Configuration> orient(Configuration start, List<Configuration> path){
+        if (!usesSymmetry(start) || path.isEmpty()){
+            return path;
+        }
+        List<Configuration> oriented = new ArrayList<>();
+        Configuration current = start;
+        oriented.add(current);
+        for (int step = 1; step < path.size(); step++){
+            Configuration target = key(path.get(step));
+            for (Configuration nbr: current.getNeighbors()){
+                if (key(nbr).equals(target)){
+                    current = nbr;
+                    break;
+                }
+            }
+            oriented.add(current);
+        }
+        return oriented;
+    }
+
+    /**
+     * turns symmetry reduction for {@link SymmetricConfiguration}s on or off. It is on by default.
+     * @param symmetry true to visit only one of each set of mirror images
+     */
+    public void setSymmetry(boolean symmetry){
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * turns pruning on or off. While it is on, a {@link DeadEndConfiguration} that is proven dead
+     * is never expanded. It is on by default.
+     * @param pruning true to prune dead configs
+     */
+    public void setPruning(boolean pruning){
+        this.pruning = pruning;
+    }
+
+    /**
+     * checks if configs like this one are checked for dead ends
+     * @param config the config
+     * @return true if {@link #isDeadEnd(Configuration)} may be true for it
+     */
+    protected boolean prunes(Configuration config){
+        return pruning && config instanceof DeadEndConfiguration;
+    }
+
+    /**
+     * checks if a config should be skipped because it is proven to have no solution
+     * @param config the config
+     * @return true if pruning is on and the config is dead
+     */
+    protected boolean isDeadEnd(Configuration config){
+        return prunes(config) && ((DeadEndConfiguration) config).isDead();
+    }
+
+    /**
+     * sets the listener that is told when searches start and finish and gets their progress reports,
+     * replacing any progress listener. Statistics are collected while a listener is set.
+     * @param listener the listener, or null for none
+     */
+    public void setListener(SolverListener listener){
+        this.searchListener = listener;
+        this.listener = listener;
+    }
+
+    /**
+     * turns statistics collection on or off. They are also collected while a listener is set or
+     * a flight recording has the solver events enabled.
+     * @param collectStats true to collect them
+     */
+    public void setCollectStats(boolean collectStats){
+        this.collectStats = collectStats;
+    }
+
+    /**
+     * gets the statistics of the last search
+     * @return the statistics, or null if they were not collected
+     */
+    public SolverStats getStats(){
+        return stats;
+    }
+
+    /**
+     * Called by the searches when they start. Decides whether statistics are collected this time
+     * and tells the listener.
+     * @param start the starting configuration
+     */
+    protected void startSearch(Configuration start){
+        stats = null;
+        event = new SolverSearchEvent();
+        if (!event.isEnabled()){
+            event = null;
+        }
+        if (collectStats || searchListener != null || event != null){
+            stats = new SolverStats(getClass().getSimpleName());
+            stats.discovered(0, 1);
+            searchStart = System.nanoTime();
+            if (event != null){
+                event.begin();
+            }
+            if (searchListener != null){
+                searchListener.searchStarted(this, start);
             }
         }
-        if (hasSolution){
-            Configuration currConfig = end;
-            while (currConfig != start) {
-                path.add(0, currConfig);
-                currConfig = predecessors.get(currConfig);
+    }
+
+    /**
+     * Called by the searches on their way out. Fills in the totals, commits the flight recorder
+     * events and tells the listener.
+     * @param path the path being returned
+     * @param visited number of configs the search was keeping track of at the end
+     * @return the path
+     */
+    protected <C extends Collection<Configuration>> C finishSearch(C path, long visited){
+        if (stats == null){
+            return path;
+        }
+        stats.totalNanos = System.nanoTime() - searchStart;
+        stats.configs = configs;
+        stats.uniqueConfigs = uniqueConfigs;
+        stats.peakVisited = Math.max(stats.peakVisited, visited);
+        stats.solutionLength = path.size();
+        Runtime runtime = Runtime.getRuntime();
+        stats.heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        long[] depthCounts = stats.getDepthCounts();
+        if (event != null){
+            event.engine = stats.getEngine();
+            event.configs = configs;
+            event.uniqueConfigs = uniqueConfigs;
+            event.expansions = stats.expansions;
+            event.neighborTime = stats.neighborNanos;
+            event.lookupTime = stats.lookupNanos;
+            event.peakVisited = stats.peakVisited;
+            event.depth = depthCounts.length - 1;
+            event.solutionLength = stats.solutionLength;
+            event.commit();
+            event = null;
+            for (int depth = 0; depth < depthCounts.length; depth++){
+                SolverDepthEvent depthEvent = new SolverDepthEvent();
+                depthEvent.engine = stats.getEngine();
+                depthEvent.depth = depth;
+                depthEvent.configs = depthCounts[depth];
+                depthEvent.commit();
             }
-            path.add(0, start);
+        }
+        if (searchListener != null){
+            searchListener.searchFinished(stats);
         }
         return path;
     }
 
+    /**
+     * gets a config's neighbors, timing the call when statistics are being collected. A config
+     * that is proven dead has none, so nothing after it is searched.
+     * @param config the config being expanded
+     * @return its neighbors
+     */
+    protected Collection<Configuration> neighbors(Configuration config){
+        if (isDeadEnd(config)){
+            return new ArrayList<>();
+        }
+        if (stats == null){
+            return config.getNeighbors();
+        }
+        long begin = System.nanoTime();
+        Collection<Configuration> nbrs = config.getNeighbors();
+        stats.neighborNanos += System.nanoTime() - begin;
+        stats.expansions += 1;
+        return nbrs;
+    }
+
+    /**
+     * Passes a config's neighbors to a sink, stopping when the sink asks to. A
+     * {@link StreamingConfiguration} streams them straight into the sink; any other config's
+     * neighbors are collected first and then passed on. When statistics are being collected, the
+     * time spent in the sink on visited set lookups is not counted as neighbor time. A config that
+     * is proven dead has no neighbors.
+     * @param config the config being expanded
+     * @param sink receives the neighbors
+     */
+    protected void forEachNeighbor(Configuration config, NeighborSink sink){
+        if (!(config instanceof StreamingConfiguration)){
+            for (Configuration nbr: neighbors(config)){
+                if (!sink.accept(nbr)){
+                    return;
+                }
+            }
+            return;
+        }
+        if (isDeadEnd(config)){
+            return;
+        }
+        if (stats == null){
+            ((StreamingConfiguration) config).forEachNeighbor(sink);
+            return;
+        }
+        long begin = System.nanoTime();
+        long lookups = stats.lookupNanos;
+        ((StreamingConfiguration) config).forEachNeighbor(sink);
+        stats.neighborNanos += System.nanoTime() - begin - (stats.lookupNanos - lookups);
+        stats.expansions += 1;
+    }
+
+    /**
+     * starts timing a visited set lookup
+     * @return the time to pass to {@link #lookupEnd(long)}
+     */
+    protected long lookupStart(){
+        return stats == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * finishes timing a visited set lookup
+     * @param begin the value {@link #lookupStart()} returned
+     */
+    protected void lookupEnd(long begin){
+        if (stats != null){
+            stats.lookupNanos += System.nanoTime() - begin;
+        }
+    }
+
+    /**
+     * counts new configs found at a depth
+     * @param depth the depth, in moves from the start
+     * @param count number of configs
+     */
+    protected void discovered(int depth, long count){
+        if (stats != null){
+            stats.discovered(depth, count);
+        }
+    }
+
+    /**
+     * counts a new config found at a depth
+     * @param depth the depth, in moves from the start
+     */
+    protected void discovered(int depth){
+        discovered(depth, 1);
+    }
+
+    /**
+     * Called by the searches once for every config they expand. Stops the search if its thread
+     * has been interrupted, and now and then passes the counters on to the progress listener.
+     * @param depth depth the search is at
+     * @throws CancellationException if the searching thread is interrupted
+     */
+    protected void checkpoint(int depth){
+        if (Thread.currentThread().isInterrupted()){
+            throw new CancellationException("Search cancelled");
+        }
+        if (listener != null && ++checkpoints >= CLOCK_CHECKS){
+            checkpoints = 0;
+            long now = System.nanoTime();
+            if (now - nextReport >= 0){
+                nextReport = now + REPORT_INTERVAL;
+                listener.progress(depth, configs, uniqueConfigs);
+            }
+        }
+    }
+
     /**
      * gets the number of configs generated
      * @return config number
      */
-    public int getConfigs(){
+    public long getConfigs(){
         return configs;
     }
 
@@ -97,7 +447,7 @@ public class Solver {
      * gets the number of unique configs generated
      * @return unique configs
      */
-    public int getUniqueConfigs() {
+    public long getUniqueConfigs() {
         return uniqueConfigs;
     }
 
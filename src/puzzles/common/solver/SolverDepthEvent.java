@@ -0,0 +1,22 @@
+package puzzles.common.solver;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event for one depth of a search, made when the search finishes
+ * @author Christopher Rose
+ */
+@Name("puzzles.SolverDepth")
+@Label("Puzzle Search Depth")
+@Category("Puzzles")
+@Description("Number of new configs a puzzle search found at one depth")
+class SolverDepthEvent extends Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Configs")
+    long configs;
+}
@@ -0,0 +1,34 @@
+package puzzles.common.solver;
+
+/**
+ * Receives the start and end of every search a solver runs, along with its progress reports.
+ * Every method does nothing by default, so a listener only overrides what it needs. Setting a
+ * listener on a solver turns on {@link SolverStats} collection.
+ * @author Christopher Rose
+ */
+public interface SolverListener extends ProgressListener {
+    /**
+     * called before a search starts
+     * @param solver the solver running it
+     * @param start the starting configuration
+     */
+    default void searchStarted(Solver solver, Configuration start){
+    }
+
+    /**
+     * called while a search is running
+     * @param depth depth the search has reached, in moves from the start
+     * @param configs configs generated so far
+     * @param uniqueConfigs unique configs generated so far
+     */
+    @Override
+    default void progress(int depth, long configs, long uniqueConfigs){
+    }
+
+    /**
+     * called once a search has finished, whether or not it found a solution
+     * @param stats the search's statistics
+     */
+    default void searchFinished(SolverStats stats){
+    }
+}
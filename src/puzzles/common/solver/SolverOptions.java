@@ -0,0 +1,307 @@
+package puzzles.common.solver;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command line options shared by the puzzle mains. Options are given as "-name=value" anywhere
+ * in the argument list, everything else is kept as a positional argument for the main.
+ * @author Christopher Rose
+ */
+public class SolverOptions {
+    /** usage text for the options, to be appended to a main's usage line */
+    public static final String USAGE = "[-threads=N] [-engine=auto|bfs|parallel|bidirectional|astar|idastar|compact|external|dfs|layered]"
+            + " [-store=heap|mapped] [-storeDir=DIR] [-storeLimit=BYTES[k|m|g]] [-sortBuffer=BYTES[k|m|g]]"
+            + " [-tablebase=on|off] [-cache=on|off|verify] [-cacheDir=DIR] [-cacheLimit=BYTES[k|m|g]]"
+            + " [-stats=off|csv|json] [-symmetry=on|off] [-order=natural|constrained|open]"
+            + " [-prune=on|off] [-jobs=N]";
+    /** names accepted by the -engine option */
+    private static final List<String> ENGINES = List.of("auto", "bfs", "parallel", "bidirectional",
+            "astar", "idastar", "compact", "external", "dfs", "layered");
+    /** values accepted by the -cache option */
+    private static final List<String> CACHE_MODES = List.of("on", "off", "verify");
+    /** values accepted by the -stats option */
+    private static final List<String> STATS_FORMATS = List.of("off", "csv", "json");
+
+    private final List<String> arguments = new ArrayList<>();
+    private int threads;
+    private String engine;
+    private boolean mappedStore;
+    private Path storeDirectory;
+    private long storeLimit;
+    private long sortBuffer;
+    private boolean tablebase;
+    private String cacheMode;
+    private Path cacheDirectory;
+    private long cacheLimit;
+    private String statsFormat;
+    private boolean symmetry;
+    private DepthFirstSolver.MoveOrder moveOrder;
+    private boolean pruning;
+    private int jobs;
+
+    /**
+     * SolverOptions constructor, sets all the defaults
+     */
+    public SolverOptions(){
+        this.threads = 1;
+        this.engine = "auto";
+        this.mappedStore = false;
+        this.storeDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+        this.storeLimit = 4L << 30;
+        this.sortBuffer = 64L << 20;
+        this.tablebase = true;
+        this.cacheMode = "on";
+        this.cacheDirectory = Path.of(System.getProperty("user.home"), ".puzzle-cache");
+        this.cacheLimit = 64L << 20;
+        this.statsFormat = "off";
+        this.symmetry = true;
+        this.moveOrder = DepthFirstSolver.MoveOrder.NATURAL;
+        this.pruning = true;
+        this.jobs = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * splits the command line into options and positional arguments
+     * @param args command line arguments
+     * @return the parsed options
+     * @throws IllegalArgumentException if an option is unknown or has a bad value
+     */
+    public static SolverOptions parse(String[] args){
+        SolverOptions options = new SolverOptions();
+        for (String arg: args){
+            if (arg.startsWith("-") && arg.length() > 1){
+                int equals = arg.indexOf('=');
+                String name = equals < 0 ? arg.substring(1) : arg.substring(1, equals);
+                String value = equals < 0 ? "" : arg.substring(equals + 1);
+                options.set(name, value);
+            } else {
+                options.arguments.add(arg);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * sets a single option
+     * @param name option name without the leading dash
+     * @param value option value
+     */
+    private void set(String name, String value){
+        switch (name){
+            case "threads" -> {
+                threads = Integer.parseInt(value);
+                if (threads < 1){
+                    throw new IllegalArgumentException("threads must be at least 1: " + value);
+                }
+            }
+            case "jobs" -> {
+                jobs = Integer.parseInt(value);
+                if (jobs < 1){
+                    throw new IllegalArgumentException("jobs must be at least 1: " + value);
+                }
+            }
+            case "engine" -> {
+                if (!ENGINES.contains(value)){
+                    throw new IllegalArgumentException("Unknown engine: " + value);
+                }
+                engine = value;
+            }
+            case "store" -> {
+                if (!value.equals("heap") && !value.equals("mapped")){
+                    throw new IllegalArgumentException("Unknown store: " + value);
+                }
+                mappedStore = value.equals("mapped");
+            }
+            case "storeDir" -> storeDirectory = Path.of(value);
+            case "storeLimit" -> storeLimit = parseSize(value);
+            case "sortBuffer" -> sortBuffer = parseSize(value);
+            case "tablebase" -> tablebase = parseSwitch(name, value);
+            case "cache" -> {
+                if (!CACHE_MODES.contains(value)){
+                    throw new IllegalArgumentException("-cache must be on, off or verify: " + value);
+                }
+                cacheMode = value;
+            }
+            case "cacheDir" -> cacheDirectory = Path.of(value);
+            case "cacheLimit" -> cacheLimit = parseSize(value);
+            case "stats" -> {
+                if (!STATS_FORMATS.contains(value)){
+                    throw new IllegalArgumentException("-stats must be off, csv or json: " + value);
+                }
+                statsFormat = value;
+            }
+            case "symmetry" -> symmetry = parseSwitch(name, value);
+            case "prune" -> pruning = parseSwitch(name, value);
+            case "order" -> moveOrder = switch (value){
+                case "natural" -> DepthFirstSolver.MoveOrder.NATURAL;
+                case "constrained" -> DepthFirstSolver.MoveOrder.FEWEST_REPLIES;
+                case "open" -> DepthFirstSolver.MoveOrder.MOST_REPLIES;
+                default -> throw new IllegalArgumentException("-order must be natural, constrained or open: " + value);
+            };
+            default -> throw new IllegalArgumentException("Unknown option: -" + name);
+        }
+    }
+
+    /**
+     * reads an on or off value
+     * @param name option name, for the error message
+     * @param value the value
+     * @return true for on
+     */
+    private static boolean parseSwitch(String name, String value){
+        if (!value.equals("on") && !value.equals("off")){
+            throw new IllegalArgumentException("-" + name + " must be on or off: " + value);
+        }
+        return value.equals("on");
+    }
+
+    /**
+     * reads a byte count with an optional k, m or g suffix
+     * @param value the size
+     * @return number of bytes
+     */
+    private static long parseSize(String value){
+        String digits = value.toLowerCase();
+        int shift = 0;
+        if (digits.endsWith("k")){
+            shift = 10;
+        } else if (digits.endsWith("m")){
+            shift = 20;
+        } else if (digits.endsWith("g")){
+            shift = 30;
+        }
+        if (shift != 0){
+            digits = digits.substring(0, digits.length() - 1);
+        }
+        long size = Long.parseLong(digits) << shift;
+        if (size <= 0){
+            throw new IllegalArgumentException("Bad size: " + value);
+        }
+        return size;
+    }
+
+    /**
+     * builds the solver the options ask for. The "auto" engine searches from both ends when the
+     * start knows its goal, and otherwise runs the plain BFS, in parallel if more than one thread
+     * was asked for. Asking for the mapped store with the "auto" engine picks the compact BFS,
+     * since that is the engine that uses it.
+     * @param start the configuration that is going to be solved
+     * @return a solver for it
+     */
+    public Solver createSolver(Configuration start){
+        Solver solver = switch (engine){
+            case "auto" -> {
+                if (mappedStore){
+                    yield createCompactSolver();
+                }
+                if (threads > 1){
+                    yield new ParallelSolver(threads);
+                }
+                yield start instanceof BidirectionalConfiguration ? new BidirectionalSolver() : new Solver();
+            }
+            case "bfs" -> new Solver();
+            case "parallel" -> new ParallelSolver(threads);
+            case "bidirectional" -> new BidirectionalSolver();
+            case "astar" -> new AStarSolver();
+            case "idastar" -> new IDAStarSolver();
+            case "compact" -> createCompactSolver();
+            case "external" -> new ExternalSolver(storeDirectory, sortBuffer);
+            case "dfs" -> new DepthFirstSolver(moveOrder);
+            case "layered" -> new LayeredSolver();
+            default -> throw new IllegalStateException("Unknown engine: " + engine);
+        };
+        solver.setCollectStats(!statsFormat.equals("off"));
+        solver.setSymmetry(symmetry);
+        solver.setPruning(pruning);
+        return solver;
+    }
+
+    /**
+     * puts the solution cache in front of a solver, unless the cache was turned off. The cache is
+     * also left out when statistics were asked for, since a cached answer has none. The options
+     * that change which path is found or what the counters say are added to the key, so a
+     * cached answer always comes from the same kind of search the caller asked for.
+     * @param solver the solver that does the searching
+     * @param key string that identifies the puzzle, the same every time the same puzzle is run
+     * @return the solver to use
+     */
+    public Solver withCache(Solver solver, String key){
+        if (cacheMode.equals("off") || !statsFormat.equals("off")){
+            return solver;
+        }
+        String settings = "engine=" + engine + " threads=" + threads + " store=" + (mappedStore ? "mapped" : "heap")
+                + " tablebase=" + tablebase + " symmetry=" + symmetry + " prune=" + pruning + " order=" + moveOrder;
+        boolean repeatable = !engine.equals("parallel") && !(engine.equals("auto") && !mappedStore && threads > 1);
+        return new CachedSolver(solver, new SolutionCache(cacheDirectory, cacheLimit),
+                key + System.lineSeparator() + settings, cacheMode.equals("verify"), repeatable);
+    }
+
+    /**
+     * prints the statistics of a solver's last search in the format the options ask for. Nothing
+     * is printed if they were not asked for, or if the answer came from a cache or tablebase
+     * instead of a search.
+     * @param solver the solver
+     * @param out where to print them
+     */
+    public void printStats(Solver solver, PrintStream out){
+        SolverStats stats = solver.getStats();
+        if (stats == null || statsFormat.equals("off")){
+            return;
+        }
+        out.println(statsFormat.equals("csv") ? stats.toCsv().stripTrailing() : stats.toJson());
+    }
+
+    /**
+     * builds the compact BFS with the store the options ask for
+     * @return compact solver
+     */
+    private CompactSolver createCompactSolver(){
+        if (mappedStore){
+            return new CompactSolver(width -> new MappedStateStore(storeDirectory, storeLimit, width));
+        }
+        return new CompactSolver();
+    }
+
+    /**
+     * gets the positional (non option) arguments
+     * @return positional arguments, in order
+     */
+    public String[] getArguments(){
+        return arguments.toArray(new String[0]);
+    }
+
+    /**
+     * gets the name of the search engine
+     * @return engine name
+     */
+    public String getEngine(){
+        return engine;
+    }
+
+    /**
+     * checks if precomputed tablebases may be used by puzzles that have them
+     * @return true or false
+     */
+    public boolean useTablebase(){
+        return tablebase;
+    }
+
+    /**
+     * gets the number of solver threads
+     * @return thread count
+     */
+    public int getThreads(){
+        return threads;
+    }
+
+    /**
+     * gets the number of puzzles a batch solves at the same time
+     * @return job count, the number of cores unless -jobs was given
+     */
+    public int getJobs(){
+        return jobs;
+    }
+}
@@ -0,0 +1,43 @@
+package puzzles.common.solver;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event for one whole search. It is only filled in while a recording has it
+ * enabled, so it costs nothing otherwise.
+ * @author Christopher Rose
+ */
+@Name("puzzles.SolverSearch")
+@Label("Puzzle Search")
+@Category("Puzzles")
+@Description("A search run by a puzzle solver")
+class SolverSearchEvent extends Event {
+    @Label("Engine")
+    String engine;
+
+    @Label("Configs")
+    long configs;
+
+    @Label("Unique Configs")
+    long uniqueConfigs;
+
+    @Label("Expansions")
+    long expansions;
+
+    @Label("Neighbor Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long neighborTime;
+
+    @Label("Lookup Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long lookupTime;
+
+    @Label("Peak Visited")
+    long peakVisited;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Solution Length")
+    int solutionLength;
+}
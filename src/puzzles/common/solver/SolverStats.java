@@ -0,0 +1,218 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Statistics of one search: how many new configs were found at each depth, how fast configs were
+ * expanded, how many generated configs were duplicates, how big the visited set got, and how the
+ * time was split between generating neighbors, looking them up in the visited set and everything
+ * else. Solvers only collect these when asked to, since timing every lookup slows the search down.
+ * @author Christopher Rose
+ */
+public class SolverStats {
+    private final String engine;
+    private long[] depthCounts;
+    private int depths;
+    long expansions;
+    long neighborNanos;
+    long lookupNanos;
+    long totalNanos;
+    long configs;
+    long uniqueConfigs;
+    long peakVisited;
+    long heapUsed;
+    int solutionLength;
+
+    /**
+     * SolverStats constructor
+     * @param engine name of the solver the statistics are for
+     */
+    SolverStats(String engine){
+        this.engine = engine;
+        this.depthCounts = new long[16];
+        this.depths = 0;
+    }
+
+    /**
+     * counts new configs found at a depth
+     * @param depth the depth
+     * @param count number of new configs
+     */
+    void discovered(int depth, long count){
+        if (depth >= depthCounts.length){
+            depthCounts = Arrays.copyOf(depthCounts, Math.max(depth + 1, depthCounts.length * 2));
+        }
+        depthCounts[depth] += count;
+        depths = Math.max(depths, depth + 1);
+    }
+
+    /**
+     * gets the name of the solver
+     * @return engine name
+     */
+    public String getEngine(){
+        return engine;
+    }
+
+    /**
+     * gets the number of new configs found at each depth, the frontier size of a BFS
+     * @return counts indexed by depth
+     */
+    public long[] getDepthCounts(){
+        return Arrays.copyOf(depthCounts, depths);
+    }
+
+    /**
+     * gets the number of configs whose neighbors were generated
+     * @return expansions
+     */
+    public long getExpansions(){
+        return expansions;
+    }
+
+    /**
+     * gets the expansion rate over the whole search
+     * @return expansions per second
+     */
+    public double getExpansionsPerSecond(){
+        return totalNanos == 0 ? 0 : expansions * 1e9 / totalNanos;
+    }
+
+    /**
+     * gets the share of generated configs that had been seen before
+     * @return duplicate rate from 0 to 1
+     */
+    public double getDuplicateRate(){
+        return configs == 0 ? 0 : 1 - (double) uniqueConfigs / configs;
+    }
+
+    /**
+     * gets the time spent in getNeighbors
+     * @return nanoseconds
+     */
+    public long getNeighborNanos(){
+        return neighborNanos;
+    }
+
+    /**
+     * gets the time spent looking configs up in and adding them to the visited set
+     * @return nanoseconds
+     */
+    public long getLookupNanos(){
+        return lookupNanos;
+    }
+
+    /**
+     * gets the length of the whole search
+     * @return nanoseconds
+     */
+    public long getTotalNanos(){
+        return totalNanos;
+    }
+
+    /**
+     * gets the number of configs generated
+     * @return config number
+     */
+    public long getConfigs(){
+        return configs;
+    }
+
+    /**
+     * gets the number of unique configs generated
+     * @return unique configs
+     */
+    public long getUniqueConfigs(){
+        return uniqueConfigs;
+    }
+
+    /**
+     * gets the most configs the solver kept track of at once
+     * @return peak visited set size
+     */
+    public long getPeakVisited(){
+        return peakVisited;
+    }
+
+    /**
+     * gets the heap in use when the search finished
+     * @return bytes
+     */
+    public long getHeapUsed(){
+        return heapUsed;
+    }
+
+    /**
+     * gets the number of configs in the solution
+     * @return path length, 0 if there was no solution
+     */
+    public int getSolutionLength(){
+        return solutionLength;
+    }
+
+    /**
+     * gets the time spent on anything other than generating neighbors and visited set lookups
+     * @return nanoseconds
+     */
+    private long otherNanos(){
+        return Math.max(0, totalNanos - neighborNanos - lookupNanos);
+    }
+
+    /**
+     * formats the statistics as "metric,value" lines with a header, one line per depth at the end
+     * @return CSV text
+     */
+    public String toCsv(){
+        StringBuilder csv = new StringBuilder("metric,value").append(System.lineSeparator());
+        csv.append("engine,").append(engine).append(System.lineSeparator());
+        for (String[] metric: metrics()){
+            csv.append(metric[0]).append(',').append(metric[1]).append(System.lineSeparator());
+        }
+        for (int depth = 0; depth < depths; depth++){
+            csv.append("depth_").append(depth).append(',').append(depthCounts[depth]).append(System.lineSeparator());
+        }
+        return csv.toString();
+    }
+
+    /**
+     * formats the statistics as a single JSON object, with the depth counts as an array
+     * @return JSON text
+     */
+    public String toJson(){
+        StringBuilder json = new StringBuilder("{\"engine\":\"").append(engine).append('"');
+        for (String[] metric: metrics()){
+            json.append(",\"").append(metric[0]).append("\":").append(metric[1]);
+        }
+        json.append(",\"depths\":[");
+        for (int depth = 0; depth < depths; depth++){
+            json.append(depth == 0 ? "" : ",").append(depthCounts[depth]);
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * lists the numeric statistics with their names, in output order
+     * @return name and value pairs
+     */
+    private String[][] metrics(){
+        return new String[][] {
+                {"configs", Long.toString(configs)},
+                {"uniqueConfigs", Long.toString(uniqueConfigs)},
+                {"duplicateRate", String.format(Locale.ROOT, "%.4f", getDuplicateRate())},
+                {"expansions", Long.toString(expansions)},
+                {"expansionsPerSecond", String.format(Locale.ROOT, "%.0f", getExpansionsPerSecond())},
+                {"neighborMillis", millis(neighborNanos)},
+                {"lookupMillis", millis(lookupNanos)},
+                {"otherMillis", millis(otherNanos())},
+                {"totalMillis", millis(totalNanos)},
+                {"peakVisited", Long.toString(peakVisited)},
+                {"heapUsedBytes", Long.toString(heapUsed)},
+                {"solutionLength", Integer.toString(solutionLength)}
+        };
+    }
+
+    private static String millis(long nanos){
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -0,0 +1,52 @@
+package puzzles.common.solver;
+
+/**
+ * Visited set for encoded states that also remembers each state's parent. States are given
+ * ids in the order they are added, so a BFS can use the ids themselves as its queue.
+ * @author Christopher Rose
+ */
+public interface StateStore extends AutoCloseable {
+    /**
+     * adds a state if it is not in the store yet
+     * @param state array holding the encoded state
+     * @param offset index of the first long of the state
+     * @param parent id of the state it was reached from, or -1 for the start
+     * @return the new state's id, or -1 if it was already in the store
+     */
+    int add(long[] state, int offset, int parent);
+
+    /**
+     * looks up the id of a state
+     * @param state array holding the encoded state
+     * @param offset index of the first long of the state
+     * @return the state's id, or -1 if it is not in the store
+     */
+    int find(long[] state, int offset);
+
+    /**
+     * copies a stored state out of the store
+     * @param id the state's id
+     * @param dest array to copy into
+     * @param offset index of the first long to write
+     */
+    void get(int id, long[] dest, int offset);
+
+    /**
+     * gets the id of the state a state was reached from
+     * @param id the state's id
+     * @return the parent's id, or -1 for the start
+     */
+    int parent(int id);
+
+    /**
+     * gets the number of states in the store
+     * @return state count
+     */
+    int size();
+
+    /**
+     * releases whatever the store holds on to
+     */
+    @Override
+    void close();
+}
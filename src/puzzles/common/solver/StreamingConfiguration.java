@@ -0,0 +1,16 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration that can hand its neighbors to a {@link NeighborSink} one at a time instead of
+ * collecting them all first. The solvers use this when it is there, so expanding a config does
+ * not build a collection, and neighbors the search has already seen may never be built at all.
+ * The neighbors must come in the same order as from {@link #getNeighbors()}.
+ * @author Christopher Rose
+ */
+public interface StreamingConfiguration extends Configuration {
+    /**
+     * passes every neighbor of this config to a sink, stopping early if the sink asks to
+     * @param sink receives the neighbors
+     */
+    void forEachNeighbor(NeighborSink sink);
+}
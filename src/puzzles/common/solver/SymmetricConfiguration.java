@@ -0,0 +1,16 @@
+package puzzles.common.solver;
+
+/**
+ * A configuration whose puzzle looks the same after some reflection or rotation. Mirror images
+ * are solved by mirrored moves, so a solver only has to visit one of them: the solvers keep their
+ * visited sets by canonical form, and still return paths made of real moves from the start.
+ * @author Christopher Rose
+ */
+public interface SymmetricConfiguration extends Configuration {
+    /**
+     * gets the canonical form of this config. Every config that is a mirror image of this one
+     * has an equal canonical form, and configs that are not mirror images do not.
+     * @return the canonical form, which may be this config
+     */
+    Configuration canonical();
+}
@@ -0,0 +1,347 @@
+package puzzles.harness;
+
+import puzzles.chess.solver.Chess;
+import puzzles.clock.Clock;
+import puzzles.hoppers.solver.Hoppers;
+import puzzles.strings.Strings;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Runs every puzzle that has reference output in the output directory through its main class and
+ * checks the answer against the reference. The arguments of each case are read from the header line
+ * of its reference file. A case fails if it finds a solution when the reference has none or the
+ * other way around, or if its path has a different number of steps. Config counts depend on the
+ * engine, so a difference there is only reported unless -strictCounts is given.
+ * <p>
+ * Each case's wall time and peak heap go into a CSV report. If a baseline report from an earlier
+ * run is given, a case that got slower or used more heap by more than the threshold is flagged as
+ * a regression. Options the harness does not know are passed on to the mains, after "-cache=off"
+ * and "-tablebase=off" so that every case really searches. Reference transcripts of the PTUIs are
+ * skipped.
+ * @author Christopher Rose
+ */
+public class GoldenHarness {
+    private static final String USAGE = "Usage: java GoldenHarness [-outputDir=DIR] [-report=FILE] [-baseline=FILE]"
+            + " [-threshold=PERCENT] [-runs=N] [-strictCounts] [solver options]";
+    /** time differences smaller than this are noise, not regressions */
+    private static final long MIN_TIME_DIFFERENCE = 20;
+    /** heap differences smaller than this, in bytes, are noise too */
+    private static final long MIN_HEAP_DIFFERENCE = 4L << 20;
+    private static final String REPORT_HEADER = "case,status,solved,expected_solved,steps,expected_steps,"
+            + "configs,expected_configs,unique,expected_unique,millis,peak_heap_bytes,notes";
+
+    /**
+     * A puzzle main, called the same way the command line would
+     */
+    @FunctionalInterface
+    private interface PuzzleMain {
+        void run(String[] args) throws Exception;
+    }
+
+    /** the main of each puzzle, by the name of its output directory */
+    private static final Map<String, PuzzleMain> MAINS = Map.of(
+            "chess", Chess::main,
+            "clock", Clock::main,
+            "hoppers", Hoppers::main,
+            "strings", Strings::main
+    );
+
+    /**
+     * What a main printed, or what its reference file says it should print
+     * @param solved whether a solution was found
+     * @param steps number of configs in the path
+     * @param configs the total configs line, -1 if there was none
+     * @param unique the unique configs line, -1 if there was none
+     */
+    private record Answer(boolean solved, int steps, long configs, long unique) {}
+
+    /**
+     * The results of one case, a line of the report
+     */
+    private record Result(String name, String status, Answer answer, Answer expected, long millis,
+                          long peakHeap, String notes) {}
+
+    private Path outputDirectory = Path.of("output");
+    private Path report = Path.of("golden-report.csv");
+    private Path baseline;
+    private double threshold = 25;
+    private int runs = 1;
+    private boolean strictCounts;
+    private final List<String> solverOptions = new ArrayList<>(List.of("-cache=off", "-tablebase=off"));
+
+    public static void main(String[] args) throws IOException {
+        GoldenHarness harness = new GoldenHarness();
+        try {
+            for (String arg: args){
+                harness.setOption(arg);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println(USAGE);
+            return;
+        }
+        if (!harness.runAll()){
+            System.exit(1);
+        }
+    }
+
+    /**
+     * sets one harness option, or keeps it for the mains
+     * @param arg the option as given on the command line
+     */
+    private void setOption(String arg){
+        int equals = arg.indexOf('=');
+        String name = equals < 0 ? arg : arg.substring(0, equals);
+        String value = equals < 0 ? "" : arg.substring(equals + 1);
+        switch (name){
+            case "-outputDir" -> outputDirectory = Path.of(value);
+            case "-report" -> report = Path.of(value);
+            case "-baseline" -> baseline = Path.of(value);
+            case "-threshold" -> threshold = Double.parseDouble(value);
+            case "-runs" -> {
+                runs = Integer.parseInt(value);
+                if (runs < 1){
+                    throw new IllegalArgumentException("runs must be at least 1: " + value);
+                }
+            }
+            case "-strictCounts" -> strictCounts = true;
+            default -> {
+                if (!arg.startsWith("-")){
+                    throw new IllegalArgumentException("Unexpected argument: " + arg);
+                }
+                solverOptions.add(arg);
+            }
+        }
+    }
+
+    /**
+     * runs every case, prints a line for each and writes the report
+     * @return true if every case passed
+     * @throws IOException if the reference files or the baseline cannot be read, or the report
+     * cannot be written
+     */
+    private boolean runAll() throws IOException {
+        Map<String, Result> previous = baseline == null ? Map.of() : readReport(baseline);
+        List<Result> results = new ArrayList<>();
+        for (String puzzle: new TreeSet<>(MAINS.keySet())){
+            for (Path golden: goldenFiles(puzzle)){
+                Result result = runCase(puzzle, golden, previous);
+                results.add(result);
+                System.out.printf("%-24s %-9s %6d ms %6d MB %s%n", result.name(), result.status(),
+                        result.millis(), result.peakHeap() >> 20, result.notes());
+            }
+        }
+        writeReport(results);
+        long failed = results.stream().filter(result -> !result.status().equals("pass")).count();
+        System.out.println(results.size() + " cases, " + failed + " failed or regressed, report in " + report);
+        return failed == 0;
+    }
+
+    /**
+     * lists the reference files of a puzzle, leaving out the PTUI transcripts
+     * @param puzzle name of the puzzle's output directory
+     * @return the files, in name order
+     * @throws IOException if the directory cannot be listed
+     */
+    private List<Path> goldenFiles(String puzzle) throws IOException {
+        Path directory = outputDirectory.resolve(puzzle);
+        if (!Files.isDirectory(directory)){
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)){
+            return files.filter(file -> file.getFileName().toString().endsWith("-out.txt"))
+                    .filter(file -> !file.getFileName().toString().contains("-ptui-"))
+                    .sorted().toList();
+        }
+    }
+
+    /**
+     * runs one case and compares it with its reference and baseline
+     * @param puzzle name of the puzzle's output directory
+     * @param golden the case's reference file
+     * @param previous baseline results by case name
+     * @return the case's result
+     * @throws IOException if the reference file cannot be read
+     */
+    private Result runCase(String puzzle, Path golden, Map<String, Result> previous) throws IOException {
+        String name = golden.getFileName().toString().replace("-out.txt", "");
+        List<String> expectedLines = Files.readAllLines(golden);
+        Answer expected = parse(expectedLines);
+        List<String> args = new ArrayList<>(solverOptions);
+        args.addAll(arguments(header(expectedLines)));
+
+        long bestMillis = Long.MAX_VALUE;
+        long peakHeap = 0;
+        List<String> output = List.of();
+        String error = null;
+        for (int run = 0; run < runs && error == null; run++){
+            List<MemoryPoolMXBean> pools = heapPools();
+            System.gc();
+            pools.forEach(MemoryPoolMXBean::resetPeakUsage);
+            ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            PrintStream console = System.out;
+            long begin = System.nanoTime();
+            try (PrintStream out = new PrintStream(captured, true, StandardCharsets.UTF_8)){
+                System.setOut(out);
+                MAINS.get(puzzle).run(args.toArray(new String[0]));
+            } catch (Exception | Error e) {
+                error = e.toString();
+            } finally {
+                System.setOut(console);
+            }
+            bestMillis = Math.min(bestMillis, (System.nanoTime() - begin) / 1_000_000);
+            peakHeap = Math.max(peakHeap, pools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum());
+            output = captured.toString(StandardCharsets.UTF_8).lines().toList();
+        }
+
+        Answer answer = parse(output);
+        List<String> notes = new ArrayList<>();
+        String status = "pass";
+        if (error != null){
+            status = "fail";
+            notes.add("threw " + error);
+        } else if (answer.solved() != expected.solved() || answer.steps() != expected.steps()){
+            status = "fail";
+            notes.add("expected " + describe(expected) + " but got " + describe(answer));
+        }
+        if (answer.configs() != expected.configs() || answer.unique() != expected.unique()){
+            notes.add("counts " + answer.configs() + "/" + answer.unique() + " vs " + expected.configs()
+                    + "/" + expected.unique());
+            if (strictCounts){
+                status = "fail";
+            }
+        }
+        Result before = previous.get(name);
+        if (status.equals("pass") && before != null){
+            if (bestMillis - before.millis() > MIN_TIME_DIFFERENCE
+                    && bestMillis > before.millis() * (1 + threshold / 100)){
+                status = "regressed";
+                notes.add("time " + before.millis() + " -> " + bestMillis + " ms");
+            }
+            if (peakHeap - before.peakHeap() > MIN_HEAP_DIFFERENCE
+                    && peakHeap > before.peakHeap() * (1 + threshold / 100)){
+                status = "regressed";
+                notes.add("heap " + (before.peakHeap() >> 20) + " -> " + (peakHeap >> 20) + " MB");
+            }
+        }
+        return new Result(name, status, answer, expected, bestMillis, peakHeap, String.join("; ", notes));
+    }
+
+    /**
+     * finds the line of a reference file that the arguments are read from. It is normally the first
+     * line, but some references start with the command line of the run that made them.
+     * @param lines the reference file
+     * @return the header line, or an empty string if there is none
+     */
+    private static String header(List<String> lines){
+        for (String line: lines){
+            if (line.startsWith("File: ") || line.startsWith("Hours: ") || line.startsWith("Start: ")){
+                return line;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * gets the main's arguments from the header line of a reference file, which is either
+     * "File: name", "Hours: h, Start: s, End: e" or "Start: s, End: e"
+     * @param header the first line
+     * @return the positional arguments
+     */
+    private static List<String> arguments(String header){
+        List<String> args = new ArrayList<>();
+        for (String field: header.split(", ")){
+            int colon = field.indexOf(": ");
+            if (colon >= 0){
+                args.add(field.substring(colon + 2).trim());
+            }
+        }
+        return args;
+    }
+
+    /**
+     * reads the answer out of a main's output
+     * @param lines the output
+     * @return the answer
+     */
+    private static Answer parse(List<String> lines){
+        int steps = 0;
+        long configs = -1;
+        long unique = -1;
+        for (String line: lines){
+            String lower = line.toLowerCase();
+            if (line.startsWith("Step ")){
+                steps += 1;
+            } else if (lower.startsWith("total configs:")){
+                configs = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            } else if (lower.startsWith("unique configs:")){
+                unique = Long.parseLong(line.substring(line.indexOf(':') + 1).trim());
+            }
+        }
+        return new Answer(steps > 0, steps, configs, unique);
+    }
+
+    private static String describe(Answer answer){
+        return answer.solved() ? answer.steps() + " steps" : "no solution";
+    }
+
+    /**
+     * gets the memory pools that make up the heap
+     * @return heap pools
+     */
+    private static List<MemoryPoolMXBean> heapPools(){
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP).toList();
+    }
+
+    /**
+     * writes the results as CSV
+     * @param results results of every case
+     * @throws IOException if the report cannot be written
+     */
+    private void writeReport(List<Result> results) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(REPORT_HEADER);
+        for (Result result: results){
+            Answer answer = result.answer();
+            Answer expected = result.expected();
+            lines.add(String.join(",", result.name(), result.status(),
+                    String.valueOf(answer.solved()), String.valueOf(expected.solved()),
+                    String.valueOf(answer.steps()), String.valueOf(expected.steps()),
+                    String.valueOf(answer.configs()), String.valueOf(expected.configs()),
+                    String.valueOf(answer.unique()), String.valueOf(expected.unique()),
+                    String.valueOf(result.millis()), String.valueOf(result.peakHeap()),
+                    result.notes().replace(',', ' ')));
+        }
+        Files.write(report, lines);
+    }
+
+    /**
+     * reads an earlier report, for comparing against
+     * @param file the report
+     * @return its results by case name, with only the name, time and heap filled in
+     * @throws IOException if the report cannot be read
+     */
+    private static Map<String, Result> readReport(Path file) throws IOException {
+        Map<String, Result> results = new HashMap<>();
+        List<String> lines = Files.readAllLines(file);
+        if (lines.isEmpty() || !lines.get(0).equals(REPORT_HEADER)){
+            throw new IOException("Not a harness report: " + file);
+        }
+        for (String line: lines.subList(1, lines.size())){
+            String[] fields = line.split(",", -1);
+            results.put(fields[0], new Result(fields[0], fields[1], null, null,
+                    Long.parseLong(fields[10]), Long.parseLong(fields[11]), fields[12]));
+        }
+        return results;
+    }
+}
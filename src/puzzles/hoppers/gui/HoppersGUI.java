@@ -15,6 +15,7 @@ import puzzles.common.Observer;
 import puzzles.hoppers.model.HoppersModel;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 
 import java.io.File;
@@ -33,8 +34,11 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
     private HoppersModel model;
     private boolean initialized;
     private Label statuslabel;
+    private Button cancel;
     private BorderPane mainPane;
     private Button[][] board;
+    /** the image view shown on each button of the board */
+    private ImageView[][] tileImages;
     private Image redFrog = new Image(getClass().getResourceAsStream(RESOURCES_DIR+"red_frog.png"));
     private Image greenFrog = new Image(getClass().getResourceAsStream(RESOURCES_DIR+"green_frog.png"));
     private Image lilyPad = new Image(getClass().getResourceAsStream(RESOURCES_DIR+"lily_pad.png"));
@@ -45,8 +49,9 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         String filename = getParameters().getRaw().get(0);
         this.initialized = false;
         this.model = new HoppersModel(filename);
-        this.board = new Button[model.getModelRows()][model.getModelColumns()];
         this.model.addObserver(this);
+        //hints are searched for off the FX thread, and their results come back on it
+        this.model.searchInBackground(Platform::runLater);
     }
 
     @Override
@@ -74,36 +79,48 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
 
     /**
      * method that creates the gridpane of buttons to represent the board through using
-     * the models 2D array
+     * the models 2D array. The buttons and their image views are kept so later updates
+     * only have to change the images of the cells that changed.
      * @return gridpane representation of model
      */
     public GridPane createBoard(){
         GridPane boardGrid = new GridPane();
+        this.board = new Button[model.getModelRows()][model.getModelColumns()];
+        this.tileImages = new ImageView[model.getModelRows()][model.getModelColumns()];
         for (int r = 0; r < model.getModelRows(); r++){
             for (int c = 0; c < model.getModelColumns(); c++){
-                Image buttonImage = null;
-                if(model.getGraph()[r][c] == 'R'){
-                    buttonImage = redFrog;
-                } else if(model.getGraph()[r][c] == 'G'){
-                    buttonImage = greenFrog;
-                } else if(model.getGraph()[r][c] == '.'){
-                    buttonImage = lilyPad;
-                } else{
-                    buttonImage = water;
-                }
+                ImageView tileImage = new ImageView(imageFor(model.getGraph()[r][c]));
                 Button boardTile = new Button();
-                boardTile.setGraphic(new ImageView(buttonImage));
+                boardTile.setGraphic(tileImage);
                 boardTile.setMinSize(ICON_SIZE, ICON_SIZE);
                 boardTile.setMaxSize(ICON_SIZE, ICON_SIZE);
                 int row = r;
                 int column = c;
                 boardTile.setOnAction(event -> model.select(row, column));
                 this.board[r][c] = boardTile;
+                this.tileImages[r][c] = tileImage;
                 boardGrid.add(boardTile, c, r);
             }
         }
         return boardGrid;
     }
+
+    /**
+     * picks the image for a cell of the model's grid
+     * @param content the cell's character
+     * @return image to show on the cell's button
+     */
+    private Image imageFor(char content){
+        if (content == 'R'){
+            return redFrog;
+        } else if (content == 'G'){
+            return greenFrog;
+        } else if (content == '.'){
+            return lilyPad;
+        }
+        return water;
+    }
+
     public HBox createHBox (){
         HBox bottom = new HBox();
         //implementation for the load button
@@ -133,8 +150,13 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
         //implementation for hint button
         Button hint = new Button("Hint");
         hint.setOnAction(event -> model.hint());
+        //implementation for cancel button, only usable while a hint is being searched for
+        Button cancel = new Button("Cancel");
+        cancel.setOnAction(event -> model.cancelSearch());
+        cancel.setDisable(true);
+        this.cancel = cancel;
         //adding them all to the hbox
-        bottom.getChildren().addAll(load, reset, hint);
+        bottom.getChildren().addAll(load, reset, hint, cancel);
 
         return bottom;
     }
@@ -143,10 +165,22 @@ public class HoppersGUI extends Application implements Observer<HoppersModel, St
     public void update(HoppersModel hoppersModel, String msg) {
         if (!this.initialized) return;
         statuslabel.setText(msg);
-        this.board = new Button[model.getModelRows()][model.getModelColumns()];
-        mainPane.setCenter(createBoard());
+        cancel.setDisable(!model.isSearching());
+        int rows = model.getModelRows();
+        int columns = model.getModelColumns();
+        if (board.length != rows || (rows > 0 && board[0].length != columns)){
+            mainPane.setCenter(createBoard());
+            this.stage.sizeToScene();  // when a different sized puzzle is loaded
+        } else{
+            for (Coordinates cell: model.getChangedCells()){
+                tileImages[cell.row()][cell.col()].setImage(imageFor(model.getGraph()[cell.row()][cell.col()]));
+            }
+        }
+    }
 
-        this.stage.sizeToScene();  // when a different sized puzzle is loaded
+    @Override
+    public void stop() {
+        model.shutdown();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,215 @@
+package puzzles.hoppers.model;
+
+/**
+ * Finds hoppers positions that can never be solved, without searching.
+ * <p>
+ * A frog only moves by jumping over a green frog, so it can only ever stand on pads it can get to
+ * by jumps over pads that some green frog could ever stand on. Every jump can be made both ways,
+ * so these pads split the board into parts that are joined up as more pads can be jumped over.
+ * Starting with the pads the green frogs are on, the jumps over each pad that can be jumped over
+ * join the parts at their two ends, and whenever a part has a green frog in it all of its pads can
+ * be jumped over too, until nothing changes. Landing pads being taken is ignored, so the parts
+ * may be too big but are never too small. Every jump moves a frog two rows and two columns, or
+ * four rows or columns, so a part never leaves the quarter of the pads it started on; this is the
+ * colour class parity argument, and it comes out of the parts without being checked separately.
+ * <p>
+ * Every green frog has to be jumped over by some other frog, and the last jump has to be made by
+ * the red frog, since it is the only frog left at the end. Linking the parts whose frogs could
+ * jump over each other splits the frogs into groups that can never touch each other, and a group
+ * without the red frog can never be emptied, since whichever of its frogs is left cannot be jumped.
+ * So a position is dead if it does not have exactly one red frog, if a green frog can never be
+ * jumped over, if the red frog can never jump over anything, or if some green frog is not in the
+ * red frog's group.
+ * @author Christopher Rose
+ */
+final class HoppersAnalyzer {
+    private HoppersAnalyzer(){
+    }
+
+    /**
+     * checks if a position can be proven unsolvable
+     * @param board the puzzle's board
+     * @param green green frog mask
+     * @param red red frog mask
+     * @param greenCount number of green frogs
+     * @param redCount number of red frogs
+     * @return true if the position has no solution, false if it might have one
+     */
+    static boolean isDead(HoppersBoard board, long[] green, long[] red, int greenCount, int redCount){
+        if (redCount != 1){
+            return true;
+        }
+        if (greenCount == 0){
+            return false;
+        }
+        int words = board.words;
+        int pads = board.pads;
+        //union find forest of the pads, where each root has the mask of its part's pads
+        int[] parent = new int[pads];
+        long[] parts = new long[pads * words];
+        boolean[] hasGreen = new boolean[pads];
+        for (int pad = 0; pad < pads; pad++){
+            parent[pad] = pad;
+            parts[pad * words + (pad >>> 6)] = 1L << pad;
+            hasGreen[pad] = (green[pad >>> 6] & (1L << pad)) != 0;
+        }
+
+        //pads some green frog could ever stand on, which are the only pads that can be jumped over,
+        //and the ones whose jumps still have to be made
+        long[] jumpable = green.clone();
+        int[] pending = new int[pads];
+        int size = 0;
+        for (int pad = 0; pad < pads; pad++){
+            if (hasGreen[pad]){
+                pending[size++] = pad;
+            }
+        }
+        while (size > 0){
+            int[] across = board.jumpsAcross[pending[--size]];
+            for (int j = 0; j < across.length; j += 2){
+                int a = root(parent, across[j]);
+                int b = root(parent, across[j + 1]);
+                if (a == b){
+                    continue;
+                }
+                parent[b] = a;
+                hasGreen[a] |= hasGreen[b];
+                for (int w = 0; w < words; w++){
+                    parts[a * words + w] |= parts[b * words + w];
+                }
+                if (!hasGreen[a]){
+                    continue;
+                }
+                for (int w = 0; w < words; w++){
+                    long added = parts[a * words + w] & ~jumpable[w];
+                    jumpable[w] |= added;
+                    while (added != 0){
+                        pending[size++] = (w << 6) + Long.numberOfTrailingZeros(added);
+                        added &= added - 1;
+                    }
+                }
+            }
+        }
+
+        //the parts with frogs in them, the red frog's first, with how many frogs each has
+        int[] frogParts = new int[greenCount + 1];
+        int[] frogCounts = new int[greenCount + 1];
+        int count = 0;
+        for (int w = 0; w < words; w++){
+            if (red[w] != 0){
+                frogParts[count] = root(parent, (w << 6) + Long.numberOfTrailingZeros(red[w]));
+                frogCounts[count++] = 1;
+            }
+        }
+        for (int w = 0; w < words; w++){
+            long remaining = green[w];
+            while (remaining != 0){
+                int part = root(parent, (w << 6) + Long.numberOfTrailingZeros(remaining));
+                remaining &= remaining - 1;
+                int p = 0;
+                while (p < count && frogParts[p] != part){
+                    p += 1;
+                }
+                if (p == count){
+                    frogParts[count++] = part;
+                }
+                frogCounts[p] += 1;
+            }
+        }
+        long[][] over = new long[count][];
+        for (int p = 0; p < count; p++){
+            over[p] = jumpedOver(board, parts, frogParts[p], jumpable);
+        }
+
+        //parts linked by a frog of one being able to jump over a frog of the other, as a union
+        //find forest of their indexes. A frog can only jump over another frog, so within one part
+        //that needs two frogs.
+        int[] group = new int[count];
+        for (int p = 0; p < count; p++){
+            group[p] = p;
+        }
+        boolean redJumps = false;
+        for (int b = 0; b < count; b++){
+            if (!hasGreen[frogParts[b]]){
+                continue;
+            }
+            boolean jumped = false;
+            for (int a = 0; a < count; a++){
+                if ((a != b || frogCounts[a] > 1) && overlaps(over[a], parts, frogParts[b] * words)){
+                    jumped = true;
+                    redJumps |= a == 0;
+                    group[root(group, a)] = root(group, b);
+                }
+            }
+            if (!jumped){
+                return true;
+            }
+        }
+        if (!redJumps){
+            return true;
+        }
+        for (int b = 1; b < count; b++){
+            if (root(group, b) != root(group, 0)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * finds every pad a frog in a part could ever jump over
+     * @param board the puzzle's board
+     * @param parts masks of the parts
+     * @param part root pad of the part
+     * @param jumpable pads that can be jumped over
+     * @return mask of the pads
+     */
+    private static long[] jumpedOver(HoppersBoard board, long[] parts, int part, long[] jumpable){
+        int words = board.words;
+        long[] over = new long[words];
+        for (int w = 0; w < words; w++){
+            long remaining = parts[part * words + w];
+            while (remaining != 0){
+                long[] mask = board.overMasks[(w << 6) + Long.numberOfTrailingZeros(remaining)];
+                remaining &= remaining - 1;
+                for (int v = 0; v < words; v++){
+                    over[v] |= mask[v];
+                }
+            }
+        }
+        for (int w = 0; w < words; w++){
+            over[w] &= jumpable[w];
+        }
+        return over;
+    }
+
+    /**
+     * checks if a mask has a pad in common with a part
+     * @param mask the mask
+     * @param parts masks of the parts
+     * @param offset index of the part's first word
+     * @return true or false
+     */
+    private static boolean overlaps(long[] mask, long[] parts, int offset){
+        for (int w = 0; w < mask.length; w++){
+            if ((mask[w] & parts[offset + w]) != 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * finds the root of a tree in a union find forest, halving the path on the way
+     * @param parent parent of each node, roots are their own parent
+     * @param node the node
+     * @return the root
+     */
+    private static int root(int[] parent, int node){
+        while (parent[node] != node){
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+}
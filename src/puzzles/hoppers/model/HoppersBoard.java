@@ -0,0 +1,239 @@
+package puzzles.hoppers.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The fixed part of a hoppers puzzle: the grid size, which cells are lily pads, and every jump that
+ * can be made from each cell. It is built once when a puzzle file is read and shared by all the
+ * configurations of that puzzle, which only store where the frogs are.
+ * Lily pads are numbered in row-major order, so a pad's bit in a frog mask is
+ * {@code words[pad >>> 6] & (1L << pad)}.
+ * <p>
+ * The board also finds which reflections and rotations of the grid leave it looking the same,
+ * keeping each as a permutation of the pads. Most puzzles are mirror symmetric, and a config and
+ * its mirror image take the same number of moves to solve, so the solvers only need one of them.
+ * @author Christopher Rose
+ */
+final class HoppersBoard {
+    /** jump offsets for frogs on even rows: over row, over column, landing row, landing column */
+    private static final int[][] EVEN_ROW_JUMPS = {
+            {-1, -1, -2, -2}, {-2, 0, -4, 0}, {-1, 1, -2, 2}, {0, -2, 0, -4},
+            {0, 2, 0, 4}, {1, -1, 2, -2}, {2, 0, 4, 0}, {1, 1, 2, 2}
+    };
+    /** jump offsets for frogs on odd rows, which can only jump diagonally */
+    private static final int[][] ODD_ROW_JUMPS = {
+            {-1, -1, -2, -2}, {-1, 1, -2, 2}, {1, -1, 2, -2}, {1, 1, 2, 2}
+    };
+
+    final int rows;
+    final int columns;
+    /** the puzzle grid with every frog replaced by an empty pad */
+    final char[][] layout;
+    /** pad number of each cell, -1 for cells that are not lily pads */
+    final int[][] padIndex;
+    final int[] padRow;
+    final int[] padColumn;
+    final int pads;
+    /** number of longs in a frog mask */
+    final int words;
+    /** for each cell (row * columns + column), the pads jumped over, in move order */
+    final int[][] jumpOver;
+    /** for each cell, the pads landed on, matching jumpOver */
+    final int[][] jumpLanding;
+    /** pad permutations of the board's symmetries other than the identity, symmetries[s][pad] */
+    final int[][] symmetries;
+    /**
+     * for each pad, the jumps over it as pairs of the two pads at either end. Every jump can be
+     * made both ways, so each pair is only listed once
+     */
+    final int[][] jumpsAcross;
+    /** for each pad, the mask of the pads jumped over from it */
+    final long[][] overMasks;
+
+    /**
+     * builds the board and its jump tables
+     * @param grid the puzzle grid as read from the file
+     */
+    HoppersBoard(char[][] grid){
+        this.rows = grid.length;
+        this.columns = rows == 0 ? 0 : grid[0].length;
+        this.layout = new char[rows][columns];
+        this.padIndex = new int[rows][columns];
+        int count = 0;
+        for (int r = 0; r < rows; r++){
+            for (int c = 0; c < columns; c++){
+                char content = grid[r][c];
+                if (content == 'G' || content == 'R' || content == '.'){
+                    layout[r][c] = '.';
+                    padIndex[r][c] = count++;
+                } else {
+                    layout[r][c] = content;
+                    padIndex[r][c] = -1;
+                }
+            }
+        }
+        this.pads = count;
+        this.words = Math.max(1, (pads + 63) >>> 6);
+        this.padRow = new int[pads];
+        this.padColumn = new int[pads];
+        for (int r = 0; r < rows; r++){
+            for (int c = 0; c < columns; c++){
+                if (padIndex[r][c] >= 0){
+                    padRow[padIndex[r][c]] = r;
+                    padColumn[padIndex[r][c]] = c;
+                }
+            }
+        }
+
+        this.jumpOver = new int[rows * columns][];
+        this.jumpLanding = new int[rows * columns][];
+        for (int r = 0; r < rows; r++){
+            for (int c = 0; c < columns; c++){
+                int[][] offsets = r % 2 == 0 ? EVEN_ROW_JUMPS : ODD_ROW_JUMPS;
+                int[] over = new int[offsets.length];
+                int[] landing = new int[offsets.length];
+                int jumps = 0;
+                for (int[] offset: offsets){
+                    int overPad = pad(r + offset[0], c + offset[1]);
+                    int landingPad = pad(r + offset[2], c + offset[3]);
+                    if (overPad >= 0 && landingPad >= 0){
+                        over[jumps] = overPad;
+                        landing[jumps] = landingPad;
+                        jumps += 1;
+                    }
+                }
+                jumpOver[r * columns + c] = Arrays.copyOf(over, jumps);
+                jumpLanding[r * columns + c] = Arrays.copyOf(landing, jumps);
+            }
+        }
+
+        this.overMasks = new long[pads][words];
+        int[][] across = new int[pads][2 * EVEN_ROW_JUMPS.length];
+        int[] acrossCount = new int[pads];
+        for (int pad = 0; pad < pads; pad++){
+            int cell = padRow[pad] * columns + padColumn[pad];
+            for (int j = 0; j < jumpOver[cell].length; j++){
+                int over = jumpOver[cell][j];
+                overMasks[pad][over >>> 6] |= 1L << over;
+                if (pad < jumpLanding[cell][j]){
+                    across[over][acrossCount[over]++] = pad;
+                    across[over][acrossCount[over]++] = jumpLanding[cell][j];
+                }
+            }
+        }
+        this.jumpsAcross = new int[pads][];
+        for (int pad = 0; pad < pads; pad++){
+            jumpsAcross[pad] = Arrays.copyOf(across[pad], acrossCount[pad]);
+        }
+
+        List<int[]> found = new ArrayList<>();
+        for (int transform = 1; transform < 8; transform++){
+            int[] permutation = permutation(transform);
+            if (permutation != null){
+                found.add(permutation);
+            }
+        }
+        this.symmetries = found.toArray(new int[0][]);
+    }
+
+    /**
+     * Works out where one of the eight reflections and rotations of a rectangle sends each pad.
+     * Bit 0 of the transform flips the columns, bit 1 flips the rows and bit 2 swaps rows with
+     * columns (only for square grids). It is only a symmetry of the board if the grid looks the
+     * same afterwards and every jump lands on a jump, which rules out flips that change whether a
+     * row is odd or even.
+     * @param transform which transform, 1 to 7
+     * @return the pad permutation, or null if the transform is not a symmetry of this board
+     */
+    private int[] permutation(int transform){
+        boolean transpose = (transform & 4) != 0;
+        if (transpose && rows != columns){
+            return null;
+        }
+        int[] permutation = new int[pads];
+        for (int r = 0; r < rows; r++){
+            for (int c = 0; c < columns; c++){
+                int r2 = (transform & 2) != 0 ? rows - 1 - r : r;
+                int c2 = (transform & 1) != 0 ? columns - 1 - c : c;
+                if (transpose){
+                    int held = r2;
+                    r2 = c2;
+                    c2 = held;
+                }
+                if (layout[r][c] != layout[r2][c2]){
+                    return null;
+                }
+                if (padIndex[r][c] >= 0){
+                    permutation[padIndex[r][c]] = padIndex[r2][c2];
+                }
+            }
+        }
+        for (int pad = 0; pad < pads; pad++){
+            int image = permutation[pad];
+            int cell = padRow[pad] * columns + padColumn[pad];
+            int imageCell = padRow[image] * columns + padColumn[image];
+            if (jumpOver[cell].length != jumpOver[imageCell].length){
+                return null;
+            }
+            for (int j = 0; j < jumpOver[cell].length; j++){
+                if (!hasJump(imageCell, permutation[jumpOver[cell][j]], permutation[jumpLanding[cell][j]])){
+                    return null;
+                }
+            }
+        }
+        return permutation;
+    }
+
+    /**
+     * checks if a cell has a jump over one pad onto another
+     * @param cell the cell jumped from
+     * @param over pad jumped over
+     * @param landing pad landed on
+     * @return true or false
+     */
+    private boolean hasJump(int cell, int over, int landing){
+        for (int j = 0; j < jumpOver[cell].length; j++){
+            if (jumpOver[cell][j] == over && jumpLanding[cell][j] == landing){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * gets the pad number of a cell
+     * @param r row
+     * @param c column
+     * @return pad number, or -1 if the cell is off the board or not a lily pad
+     */
+    int pad(int r, int c){
+        if (r < 0 || r >= rows || c < 0 || c >= columns){
+            return -1;
+        }
+        return padIndex[r][c];
+    }
+
+    /**
+     * two boards are the same if they have the same grid size and the same lily pads
+     * @param o other board
+     * @return whether they are equal or not
+     */
+    @Override
+    public boolean equals(Object o){
+        if (this == o) return true;
+        if (!(o instanceof HoppersBoard)) return false;
+        HoppersBoard that = (HoppersBoard) o;
+        return rows == that.rows && columns == that.columns && Arrays.deepEquals(layout, that.layout);
+    }
+
+    /**
+     * hashcode method for the board
+     * @return hashcode
+     */
+    @Override
+    public int hashCode(){
+        return Arrays.deepHashCode(layout);
+    }
+}
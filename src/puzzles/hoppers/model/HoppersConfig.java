@@ -2,6 +2,14 @@ package puzzles.hoppers.model;
 
 import puzzles.common.Coordinates;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.DeadEndConfiguration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.HeuristicConfiguration;
+import puzzles.common.solver.MonotoneConfiguration;
+import puzzles.common.solver.MutableConfiguration;
+import puzzles.common.solver.NeighborSink;
+import puzzles.common.solver.StreamingConfiguration;
+import puzzles.common.solver.SymmetricConfiguration;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -13,55 +21,82 @@ import java.util.List;
 
 /**
  *Configuration for hopper
+ * The lily pads and the jumps between them are kept in a {@link HoppersBoard} shared by every
+ * configuration of the same puzzle. A configuration only holds one bit per lily pad for the green
+ * frogs and one for the red frogs, so making a move copies a few longs instead of the whole grid.
+ * Configurations are never changed once made, except for working copies made by
+ * {@link #mutableCopy()}, whose moves are a frog's pad number times 8 plus the index of its jump.
+ * The canonical form of a config is the smallest of its images under the board's symmetries,
+ * comparing the green mask and then the red mask as unsigned longs.
  * @author Christopher Rose
  */
 
-public class HoppersConfig implements Configuration{
-    private int rows;
-    private int columns;
+public class HoppersConfig implements HeuristicConfiguration, EncodableConfiguration, SymmetricConfiguration,
+        StreamingConfiguration, MutableConfiguration, MonotoneConfiguration, DeadEndConfiguration {
+    /** most jumps from one cell, the moves of a pad are pad * JUMPS to pad * JUMPS + JUMPS - 1 */
+    private static final int JUMPS = 8;
+
+    private final HoppersBoard board;
+    private final long[] green;
+    private final long[] red;
+    /** only ever changed in working copies */
+    private int greenCount;
+    private final int redCount;
+    /** grid view of this config, only built when something asks for it */
     private char[][] graph;
-    private int pieceCount;
 
     public HoppersConfig(String filename) throws IOException {
         try (BufferedReader in = new BufferedReader(new FileReader(filename))){
             //getting rows and column dimensions
             String[] dimensions = in.readLine().split("\\s+");
-            this.rows = Integer.parseInt(dimensions[0]);
-            this.columns = Integer.parseInt(dimensions[1]);
-            this.graph = new char[rows][columns];
+            int rows = Integer.parseInt(dimensions[0]);
+            int columns = Integer.parseInt(dimensions[1]);
+            char[][] grid = new char[rows][columns];
             //building the graph
-            //piece count will be used for isSolution
-            this.pieceCount = 0;
             for (int r = 0; r < rows; r++){
                 String[] rowContents = in.readLine().split(" ");
                 for (int c = 0; c < columns; c++){
-                    char content = rowContents[c].charAt(0);
-                    if (content == 'G' || content == 'R'){
-                        this.pieceCount += 1;
+                    grid[r][c] = rowContents[c].charAt(0);
+                }
+            }
+            //placing the frogs on the board's pads
+            this.board = new HoppersBoard(grid);
+            this.green = new long[board.words];
+            this.red = new long[board.words];
+            int greens = 0;
+            int reds = 0;
+            for (int r = 0; r < rows; r++){
+                for (int c = 0; c < columns; c++){
+                    int pad = board.padIndex[r][c];
+                    if (grid[r][c] == 'G'){
+                        green[pad >>> 6] |= 1L << pad;
+                        greens += 1;
+                    } else if (grid[r][c] == 'R'){
+                        red[pad >>> 6] |= 1L << pad;
+                        reds += 1;
                     }
-                    this.graph[r][c] = content;
                 }
-
             }
+            this.greenCount = greens;
+            this.redCount = reds;
         }
     }
 
     /**
-     * Copy constructor. Takes a config other, and makes a full copy of its
-     * instance data
-     * @param other the config to copy
+     * Makes a config on the same board with the given frogs. The masks are not copied, so
+     * they must not be changed afterwards.
+     * @param board the puzzle's board
+     * @param green green frog mask
+     * @param red red frog mask
+     * @param greenCount number of green frogs
+     * @param redCount number of red frogs
      */
-    private HoppersConfig(HoppersConfig other){
-        this.rows = other.rows;
-        this.columns = other.columns;
-        this.graph = new char[rows][columns];
-        this.pieceCount = other.pieceCount;
-        //copying other graph
-        for (int r = 0; r < rows; r++){
-            for (int c = 0; c < columns; c++){
-                this.graph[r][c] = other.graph[r][c];
-            }
-        }
+    private HoppersConfig(HoppersBoard board, long[] green, long[] red, int greenCount, int redCount){
+        this.board = board;
+        this.green = green;
+        this.red = red;
+        this.greenCount = greenCount;
+        this.redCount = redCount;
     }
 
     /**
@@ -70,19 +105,138 @@ public class HoppersConfig implements Configuration{
      */
     @Override
     public boolean isSolution() {
-        int greenFrogs = 0;
-        int redFrogs = 0;
-        for (int r = 0; r < rows; r++){
-            for (int c = 0; c < columns; c++){
-                if (graph[r][c] == 'G'){
-                    greenFrogs += 1;
-                }
-                if (graph[r][c] == 'R'){
-                    redFrogs += 1;
-                }
+        return greenCount == 0 && redCount == 1;
+    }
+
+    /**
+     * every jump removes exactly one green frog and the goal has none left, so the number of
+     * green frogs is a lower bound on the moves left (and exact when the puzzle is solvable)
+     * @return number of green frogs
+     */
+    @Override
+    public int estimate() {
+        return greenCount;
+    }
+
+    /**
+     * checks if this config can be proven to have no solution, using {@link HoppersAnalyzer}.
+     * A config it cannot prove dead may still have no solution.
+     * @return true if there is certainly no solution
+     */
+    @Override
+    public boolean isDead() {
+        return HoppersAnalyzer.isDead(board, green, red, greenCount, redCount);
+    }
+
+    /**
+     * every jump removes exactly one green frog, so every solution jumps all of them
+     * @return number of green frogs
+     */
+    @Override
+    public int rank() {
+        return greenCount;
+    }
+
+    /**
+     * the encoding is the green frog mask followed by the red frog mask
+     * @return number of longs in the encoding
+     */
+    @Override
+    public int encodedLength() {
+        return 2 * board.words;
+    }
+
+    /**
+     * writes the green and red frog masks
+     * @param dest array to write into
+     * @param offset index of the first long to write
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        System.arraycopy(green, 0, dest, offset, board.words);
+        System.arraycopy(red, 0, dest, offset + board.words, board.words);
+    }
+
+    /**
+     * rebuilds a config on the same board from its frog masks
+     * @param src array holding the encoding
+     * @param offset index of the first long of the encoding
+     * @return decoded config
+     */
+    @Override
+    public Configuration decode(long[] src, int offset) {
+        long[] newGreen = Arrays.copyOfRange(src, offset, offset + board.words);
+        long[] newRed = Arrays.copyOfRange(src, offset + board.words, offset + 2 * board.words);
+        return new HoppersConfig(board, newGreen, newRed, bitCount(newGreen), bitCount(newRed));
+    }
+
+    /**
+     * counts the frogs in a mask
+     * @param mask frog mask
+     * @return number of bits set
+     */
+    private static int bitCount(long[] mask){
+        int count = 0;
+        for (long word: mask){
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * gets the smallest of this config's mirror images, or this config if none is smaller
+     * @return the canonical form
+     */
+    @Override
+    public Configuration canonical() {
+        long[] bestGreen = green;
+        long[] bestRed = red;
+        for (int[] symmetry: board.symmetries){
+            long[] newGreen = permute(green, symmetry);
+            long[] newRed = permute(red, symmetry);
+            int order = compareMasks(newGreen, bestGreen);
+            if (order < 0 || (order == 0 && compareMasks(newRed, bestRed) < 0)){
+                bestGreen = newGreen;
+                bestRed = newRed;
+            }
+        }
+        if (bestGreen == green && bestRed == red){
+            return this;
+        }
+        return new HoppersConfig(board, bestGreen, bestRed, greenCount, redCount);
+    }
+
+    /**
+     * moves the frogs of a mask to the pads a symmetry sends them to
+     * @param mask frog mask
+     * @param symmetry pad permutation
+     * @return the new mask
+     */
+    private long[] permute(long[] mask, int[] symmetry){
+        long[] result = new long[mask.length];
+        for (int w = 0; w < mask.length; w++){
+            long frogs = mask[w];
+            while (frogs != 0){
+                int pad = symmetry[(w << 6) + Long.numberOfTrailingZeros(frogs)];
+                frogs &= frogs - 1;
+                result[pad >>> 6] |= 1L << pad;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * orders two frog masks word by word as unsigned longs
+     * @return negative, zero or positive like a comparator
+     */
+    private static int compareMasks(long[] a, long[] b){
+        for (int w = 0; w < a.length; w++){
+            int order = Long.compareUnsigned(a[w], b[w]);
+            if (order != 0){
+                return order;
             }
         }
-        return greenFrogs == 0 && redFrogs == 1;
+        return 0;
     }
 
     /**
@@ -92,15 +246,130 @@ public class HoppersConfig implements Configuration{
     @Override
     public Collection<Configuration> getNeighbors() {
         List<Configuration> neighbors = new ArrayList<>();
-        for (int r = 0; r < rows; r++){
-            for (int c = 0; c < columns; c++){
-                if (isFrog(r, c)){
-                    List<Configuration> moves = getMoves(r, c);
-                    neighbors.addAll(moves);
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * passes every neighbor to a sink, offering each one's masks before making it. The masks are
+     * worked out in one scratch array, so a neighbor the sink turns down costs no allocation.
+     * @param sink receives the neighbors
+     */
+    @Override
+    public void forEachNeighbor(NeighborSink sink) {
+        long[] encoding = new long[encodedLength()];
+        for (int w = 0; w < board.words; w++){
+            long frogs = green[w] | red[w];
+            while (frogs != 0){
+                int pad = (w << 6) + Long.numberOfTrailingZeros(frogs);
+                frogs &= frogs - 1;
+                int cell = board.padRow[pad] * board.columns + board.padColumn[pad];
+                int[] over = board.jumpOver[cell];
+                int[] landing = board.jumpLanding[cell];
+                for (int j = 0; j < over.length; j++){
+                    if (isGreen(over[j]) && isEmpty(landing[j])){
+                        encode(encoding, 0);
+                        int moved = isGreen(pad) ? 0 : board.words;
+                        encoding[over[j] >>> 6] &= ~(1L << over[j]);
+                        encoding[moved + (pad >>> 6)] &= ~(1L << pad);
+                        encoding[moved + (landing[j] >>> 6)] |= 1L << landing[j];
+                        if (sink.offer(encoding, 0) && !sink.accept(jump(pad, over[j], landing[j]))){
+                            return;
+                        }
+                    }
                 }
             }
         }
-        return neighbors;
+    }
+
+    /**
+     * makes a working copy with its own frog masks
+     * @return the working copy
+     */
+    @Override
+    public MutableConfiguration mutableCopy() {
+        return new HoppersConfig(board, green.clone(), red.clone(), greenCount, redCount);
+    }
+
+    /**
+     * every frog has at most eight jumps
+     * @return eight times the number of pads
+     */
+    @Override
+    public int maxMoves() {
+        return JUMPS * board.pads;
+    }
+
+    /**
+     * lists the legal jumps, in the same order as the neighbors
+     * @param dest array to write the moves into
+     * @param offset index of the first move to write
+     * @return number of moves written
+     */
+    @Override
+    public int moves(int[] dest, int offset) {
+        int count = 0;
+        for (int w = 0; w < board.words; w++){
+            long frogs = green[w] | red[w];
+            while (frogs != 0){
+                int pad = (w << 6) + Long.numberOfTrailingZeros(frogs);
+                frogs &= frogs - 1;
+                int cell = board.padRow[pad] * board.columns + board.padColumn[pad];
+                int[] over = board.jumpOver[cell];
+                int[] landing = board.jumpLanding[cell];
+                for (int j = 0; j < over.length; j++){
+                    if (isGreen(over[j]) && isEmpty(landing[j])){
+                        dest[offset + count++] = pad * JUMPS + j;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * makes a jump in place
+     * @param move pad of the jumping frog times 8 plus the index of the jump
+     */
+    @Override
+    public void apply(int move) {
+        int from = move / JUMPS;
+        int cell = board.padRow[from] * board.columns + board.padColumn[from];
+        int over = board.jumpOver[cell][move % JUMPS];
+        int to = board.jumpLanding[cell][move % JUMPS];
+        long[] frogs = isGreen(from) ? green : red;
+        frogs[from >>> 6] &= ~(1L << from);
+        frogs[to >>> 6] |= 1L << to;
+        green[over >>> 6] &= ~(1L << over);
+        greenCount -= 1;
+        graph = null;
+    }
+
+    /**
+     * takes a jump back in place
+     * @param move the jump, as passed to {@link #apply(int)}
+     */
+    @Override
+    public void undo(int move) {
+        int from = move / JUMPS;
+        int cell = board.padRow[from] * board.columns + board.padColumn[from];
+        int over = board.jumpOver[cell][move % JUMPS];
+        int to = board.jumpLanding[cell][move % JUMPS];
+        long[] frogs = isGreen(to) ? green : red;
+        frogs[to >>> 6] &= ~(1L << to);
+        frogs[from >>> 6] |= 1L << from;
+        green[over >>> 6] |= 1L << over;
+        greenCount += 1;
+        graph = null;
+    }
+
+    /**
+     * makes an unchanging copy of a working copy
+     * @return the copy
+     */
+    @Override
+    public Configuration snapshot() {
+        return new HoppersConfig(board, green.clone(), red.clone(), greenCount, redCount);
     }
 
     /**
@@ -108,140 +377,75 @@ public class HoppersConfig implements Configuration{
      * @return collection of configurations representing valid moves
      */
     public List<Configuration> getMoves(int r, int c){
-        List <Configuration> moves = new ArrayList<>();
-
-        if (r % 2 == 0){
-            //8 moves that can be made
-            //
-            //top left jump
-            if (r-2 >= 0 && c-2 >= 0 && this.graph[r-2][c-2] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r-1][c-1] == 'G'){
-                    //removing frog that has been jumped over and decrementing
-                    //piece count by 1
-                    successor.graph[r-1][c-1] = '.';
-                    //moving the frog to final position
-                    successor.graph[r-2][c-2] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //north jump
-            if (r-4 >= 0 && this.graph[r-4][c] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r-2][c] == 'G'){
-                    successor.graph[r-2][c] = '.';
-                    successor.graph[r-4][c] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //top right jump
-            if (r-2 >= 0 && c+2 < this.columns && this.graph[r-2][c+2] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r-1][c+1] == 'G') {
-                    successor.graph[r - 1][c + 1] = '.';
-                    successor.graph[r - 2][c + 2] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //west jump
-            if (c-4 >= 0 && this.graph[r][c-4] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r][c-2] == 'G'){
-                    successor.graph[r][c-2] = '.';
-                    successor.graph[r][c-4] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //east jump
-            if (c+4 < this.columns && this.graph[r][c+4] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r][c+2] == 'G'){
-                    successor.graph[r][c+2] = '.';
-                    successor.graph[r][c+4] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //bottom left jump
-            if (r+2 < this.rows && c-2 >= 0 && this.graph[r+2][c-2] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r+1][c-1] == 'G'){
-                    successor.graph[r+1][c-1] = '.';
-                    successor.graph[r+2][c-2] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //south jump
-            if (r+4 < this.rows && this.graph[r+4][c] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r+2][c] == 'G'){
-                    successor.graph[r+2][c] = '.';
-                    successor.graph[r+4][c] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //bottom right jump
-            if (r+2 < this.rows && c+2 < this.columns && this.graph[r+2][c+2] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r+1][c+1] == 'G'){
-                    successor.graph[r+1][c+1] = '.';
-                    successor.graph[r+2][c+2] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
+        List<Configuration> moves = new ArrayList<>();
+        int pad = board.pad(r, c);
+        if (pad >= 0 && isFrog(pad)){
+            addMoves(pad, moves);
+        }
+        return moves;
+    }
+
+    /**
+     * adds a successor for every legal jump of the frog on a pad
+     * @param pad the frog's pad
+     * @param moves list the successors are added to
+     */
+    private void addMoves(int pad, List<? super HoppersConfig> moves){
+        int cell = board.padRow[pad] * board.columns + board.padColumn[pad];
+        int[] over = board.jumpOver[cell];
+        int[] landing = board.jumpLanding[cell];
+        for (int j = 0; j < over.length; j++){
+            if (isGreen(over[j]) && isEmpty(landing[j])){
+                moves.add(jump(pad, over[j], landing[j]));
             }
+        }
+    }
 
+    /**
+     * makes the successor for a jump that is known to be legal
+     * @param from pad the frog jumps from
+     * @param over pad of the green frog being jumped
+     * @param to pad the frog lands on
+     * @return the new config
+     */
+    private HoppersConfig jump(int from, int over, int to){
+        long[] newGreen = green.clone();
+        long[] newRed = red;
+        newGreen[over >>> 6] &= ~(1L << over);
+        if (isGreen(from)){
+            newGreen[from >>> 6] &= ~(1L << from);
+            newGreen[to >>> 6] |= 1L << to;
         } else {
-            //only 4 moves that can be made
-            //
-            //top left jump
-            if (r-2 >= 0 && c-2 >= 0 && this.graph[r-2][c-2] == '.') {
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r - 1][c - 1] == 'G') {
-                    successor.graph[r - 1][c - 1] = '.';
-                    successor.graph[r - 2][c - 2] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //top right jump
-            if (r-2 >= 0 && c+2 < this.columns && this.graph[r-2][c+2] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r-1][c+1] == 'G') {
-                    successor.graph[r - 1][c + 1] = '.';
-                    successor.graph[r - 2][c + 2] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //bottom left jump
-            if (r+2 < this.rows && c-2 >= 0 && this.graph[r+2][c-2] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r+1][c-1] == 'G'){
-                    successor.graph[r+1][c-1] = '.';
-                    successor.graph[r+2][c-2] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
-            }
-            //bottom right jump
-            if (r+2 < this.rows && c+2 < this.columns && this.graph[r+2][c+2] == '.'){
-                HoppersConfig successor = new HoppersConfig(this);
-                if (this.graph[r+1][c+1] == 'G'){
-                    successor.graph[r+1][c+1] = '.';
-                    successor.graph[r+2][c+2] = this.graph[r][c];
-                    successor.graph[r][c] = '.';
-                    moves.add(successor);
-                }
+            newRed = red.clone();
+            newRed[from >>> 6] &= ~(1L << from);
+            newRed[to >>> 6] |= 1L << to;
+        }
+        return new HoppersConfig(board, newGreen, newRed, greenCount - 1, redCount);
+    }
+
+    /**
+     * makes the config the user gets by jumping the frog at (r, c) to (r2, c2)
+     * @param r row of the frog
+     * @param c column of the frog
+     * @param r2 row to be moved to
+     * @param c2 column to be moved to
+     * @return the new config, or null if that jump is not allowed
+     */
+    public HoppersConfig jump(int r, int c, int r2, int c2){
+        int from = board.pad(r, c);
+        int to = board.pad(r2, c2);
+        if (from < 0 || to < 0 || !isFrog(from)){
+            return null;
+        }
+        int cell = r * board.columns + c;
+        int[] over = board.jumpOver[cell];
+        int[] landing = board.jumpLanding[cell];
+        for (int j = 0; j < over.length; j++){
+            if (landing[j] == to && isGreen(over[j]) && isEmpty(to)){
+                return jump(from, over[j], to);
             }
         }
-        return moves;
+        return null;
     }
 
     /**
@@ -252,67 +456,12 @@ public class HoppersConfig implements Configuration{
      */
     public List<Coordinates> possibleMoves(int r, int c){
         List<Coordinates> moves = new ArrayList<>();
-        if (r % 2 == 0){
-            if (r-2 >= 0 && c-2 >= 0 && this.graph[r-2][c-2] == '.'){
-                if (this.graph[r-1][c-1] == 'G'){
-                    moves.add(new Coordinates(r-2,c-2));
-                }
-            }
-            if (r-4 >= 0 && this.graph[r-4][c] == '.'){
-                if (this.graph[r-2][c] == 'G'){
-                    moves.add(new Coordinates(r-4,c));
-                }
-            }
-            if (r-2 >= 0 && c+2 < this.columns && this.graph[r-2][c+2] == '.'){
-                if (this.graph[r-1][c+1] == 'G'){
-                    moves.add(new Coordinates(r-2,c+2));
-                }
-            }
-            if (c-4 >= 0 && this.graph[r][c-4] == '.'){
-                if (this.graph[r][c-2] == 'G'){
-                    moves.add(new Coordinates(r, c-4));
-                }
-            }
-            if (c+4 < this.columns && this.graph[r][c+4] == '.'){
-                if (this.graph[r][c+2] == 'G'){
-                    moves.add(new Coordinates(r, c+4));
-                }
-            }
-            if (r+2 < this.rows && c-2 >= 0 && this.graph[r+2][c-2] == '.'){
-                if (this.graph[r+1][c-1] == 'G'){
-                    moves.add(new Coordinates(r+2, c-2));
-                }
-            }
-            if (r+4 < this.rows && this.graph[r+4][c] == '.'){
-                if (this.graph[r+2][c] == 'G'){
-                    moves.add(new Coordinates(r+4, c));
-                }
-            }
-            if (r+2 < this.rows && c+2 < this.columns && this.graph[r+2][c+2] == '.'){
-                if (this.graph[r+1][c+1] == 'G'){
-                    moves.add(new Coordinates(r+2, c+2));
-                }
-            }
-        } else{
-            if (r-2 >= 0 && c-2 >= 0 && this.graph[r-2][c-2] == '.'){
-                if (this.graph[r-1][c-1] == 'G'){
-                    moves.add(new Coordinates(r-2,c-2));
-                }
-            }
-            if (r-2 >= 0 && c+2 < this.columns && this.graph[r-2][c+2] == '.'){
-                if (this.graph[r-1][c+1] == 'G'){
-                    moves.add(new Coordinates(r-2,c+2));
-                }
-            }
-            if (r+2 < this.rows && c-2 >= 0 && this.graph[r+2][c-2] == '.'){
-                if (this.graph[r+1][c-1] == 'G'){
-                    moves.add(new Coordinates(r+2, c-2));
-                }
-            }
-            if (r+2 < this.rows && c+2 < this.columns && this.graph[r+2][c+2] == '.'){
-                if (this.graph[r+1][c+1] == 'G'){
-                    moves.add(new Coordinates(r+2, c+2));
-                }
+        int cell = r * board.columns + c;
+        int[] over = board.jumpOver[cell];
+        int[] landing = board.jumpLanding[cell];
+        for (int j = 0; j < over.length; j++){
+            if (isGreen(over[j]) && isEmpty(landing[j])){
+                moves.add(new Coordinates(board.padRow[landing[j]], board.padColumn[landing[j]]));
             }
         }
         return moves;
@@ -323,7 +472,35 @@ public class HoppersConfig implements Configuration{
      * @return true or false
      */
     public boolean isFrog(int row, int col){
-        return graph[row][col] == 'R' || graph[row][col] == 'G';
+        int pad = board.pad(row, col);
+        return pad >= 0 && isFrog(pad);
+    }
+
+    /**
+     * checks if a pad has a frog of either color on it
+     * @param pad pad number
+     * @return true or false
+     */
+    private boolean isFrog(int pad){
+        return ((green[pad >>> 6] | red[pad >>> 6]) & (1L << pad)) != 0;
+    }
+
+    /**
+     * checks if a pad has a green frog on it
+     * @param pad pad number
+     * @return true or false
+     */
+    private boolean isGreen(int pad){
+        return (green[pad >>> 6] & (1L << pad)) != 0;
+    }
+
+    /**
+     * checks if a pad has no frog on it
+     * @param pad pad number
+     * @return true or false
+     */
+    private boolean isEmpty(int pad){
+        return !isFrog(pad);
     }
 
     /**
@@ -333,8 +510,9 @@ public class HoppersConfig implements Configuration{
      */
     public boolean isOddRow(int row){
         int availableSpaces = 0;
-        for (int c = 0; c < columns ; c++){
-            if(graph[row][c] == '.'){
+        for (int c = 0; c < board.columns ; c++){
+            int pad = board.padIndex[row][c];
+            if (pad >= 0 && isEmpty(pad)){
                 availableSpaces += 1;
             }
         }
@@ -347,13 +525,14 @@ public class HoppersConfig implements Configuration{
      */
     @Override
     public String toString(){
+        char[][] graph = getGraph();
         StringBuilder result = new StringBuilder("");
-        for (int r = 0; r < rows; r++){
-            for(int c = 0; c < columns; c++){
-                if (c == columns-1){
-                    result.append(this.graph[r][c]).append(System.lineSeparator());
+        for (int r = 0; r < board.rows; r++){
+            for(int c = 0; c < board.columns; c++){
+                if (c == board.columns-1){
+                    result.append(graph[r][c]).append(System.lineSeparator());
                 } else{
-                    result.append(this.graph[r][c]).append(" ");
+                    result.append(graph[r][c]).append(" ");
                 }
             }
         }
@@ -371,16 +550,17 @@ public class HoppersConfig implements Configuration{
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         HoppersConfig that = (HoppersConfig) o;
-        return Arrays.deepEquals(graph, that.graph);
+        return greenCount == that.greenCount && Arrays.equals(green, that.green)
+                && Arrays.equals(red, that.red) && (board == that.board || board.equals(that.board));
     }
 
     /**
      * hashcode method for the config. used in the solver
-     * @return
+     * @return hashcode made from the frog masks
      */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(graph);
+        return 31 * Arrays.hashCode(green) + Arrays.hashCode(red);
     }
 
     /**
@@ -388,7 +568,7 @@ public class HoppersConfig implements Configuration{
      * @return amount of rows in config
      */
     public int getRows(){
-        return rows;
+        return board.rows;
     }
 
     /**
@@ -396,10 +576,38 @@ public class HoppersConfig implements Configuration{
      * @return amount of columns in config
      */
     public int getColumns(){
-        return columns;
+        return board.columns;
+    }
+
+    /**
+     * getter for the number of green frogs left
+     * @return green frog count
+     */
+    public int getGreenCount(){
+        return greenCount;
     }
 
+    /**
+     * getter for the grid form of the config: 'G' and 'R' for frogs, '.' for empty lily pads and
+     * '*' for water. The grid is built the first time it is asked for and shared after that, so
+     * it must not be changed.
+     * @return the grid
+     */
     public char[][] getGraph() {
+        if (graph == null){
+            char[][] grid = new char[board.rows][];
+            for (int r = 0; r < board.rows; r++){
+                grid[r] = board.layout[r].clone();
+            }
+            for (int pad = 0; pad < board.pads; pad++){
+                if (isGreen(pad)){
+                    grid[board.padRow[pad]][board.padColumn[pad]] = 'G';
+                } else if (isFrog(pad)){
+                    grid[board.padRow[pad]][board.padColumn[pad]] = 'R';
+                }
+            }
+            graph = grid;
+        }
         return graph;
     }
 }
@@ -3,11 +3,19 @@ package puzzles.hoppers.model;
 import puzzles.common.Coordinates;
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
-import puzzles.common.solver.Solver;
+import puzzles.common.solver.DepthFirstSolver;
+import puzzles.common.solver.HeapStateStore;
+import puzzles.common.solver.StateStore;
 import puzzles.hoppers.model.HoppersConfig;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 public class HoppersModel {
     /** the collection of observers of this model */
@@ -15,8 +23,27 @@ public class HoppersModel {
 
     /** the current configuration */
     private HoppersConfig currentConfig;
+    /** cells whose contents changed since the observers were last updated */
+    private List<Coordinates> changedCells = new ArrayList<>();
     private String filename;
-    private Solver puzzleSolver;
+    private DepthFirstSolver puzzleSolver;
+    /** next config on a solution path, for every config a search has solved since the last load or reset */
+    private final Map<HoppersConfig, HoppersConfig> bestNext = new HashMap<>();
+    /** configs a search has shown to have no solution since the last load or reset */
+    private final Set<HoppersConfig> deadConfigs = new HashSet<>();
+    /** encoded configs the searches proved dead along the way, shared by every search since the
+     * last load or reset. Null before the first search, and while a background search has it */
+    private StateStore deadStates;
+    /** precomputed answers for the loaded puzzle, null if it has no tablebase */
+    private HoppersTablebase tablebase;
+    /** runs searches off the caller's thread, null while searches run on the caller's thread */
+    private ExecutorService searchExecutor;
+    /** hands search results and progress back to the thread the observers expect */
+    private Executor observerExecutor;
+    /** the running background search, null if there is none */
+    private Future<?> search;
+    /** goes up whenever a search is started or abandoned, so results of older searches are dropped */
+    private int searchGeneration;
     private int initialR;
     private int initialC;
     private int secondR;
@@ -24,7 +51,7 @@ public class HoppersModel {
 
     /*** enum of the different states the game can be in at a time*/
     public enum GameState{
-        ONGOING, WON, LOST, ILLEGAL_MOVE, LOAD, INVALID_FILE, RESET
+        ONGOING, WON, LOST, ILLEGAL_MOVE, LOAD, INVALID_FILE, RESET, SEARCHING, CANCELLED, SEARCH_FAILED
     }
 
     /*** The current state of the game*/
@@ -37,7 +64,10 @@ public class HoppersModel {
                     GameState.ILLEGAL_MOVE, "Illegal Move.",
                     GameState.LOAD, "File loaded successfully.",
                     GameState.INVALID_FILE, "File could not be read.",
-                    GameState.RESET, "Puzzle has been reset."
+                    GameState.RESET, "Puzzle has been reset.",
+                    GameState.SEARCHING, "Searching...",
+                    GameState.CANCELLED, "Search cancelled.",
+                    GameState.SEARCH_FAILED, "Search failed:"
             ));
 
     /**
@@ -57,6 +87,27 @@ public class HoppersModel {
         for (var observer : observers) {
             observer.update(this, msg);
         }
+        changedCells = new ArrayList<>();
+    }
+
+    /**
+     * changes the current config and works out which cells are different. If the new config has
+     * a different size every one of its cells counts as changed.
+     * @param config the new config
+     */
+    private void setCurrentConfig(HoppersConfig config){
+        HoppersConfig previous = currentConfig;
+        currentConfig = config;
+        char[][] after = config.getGraph();
+        boolean resized = previous.getRows() != config.getRows() || previous.getColumns() != config.getColumns();
+        char[][] before = resized ? null : previous.getGraph();
+        for (int r = 0; r < config.getRows(); r++){
+            for (int c = 0; c < config.getColumns(); c++){
+                if (resized || before[r][c] != after[r][c]){
+                    changedCells.add(new Coordinates(r, c));
+                }
+            }
+        }
     }
 
     /**
@@ -66,25 +117,63 @@ public class HoppersModel {
      */
     public HoppersModel(String filename) throws IOException {
         currentConfig = new HoppersConfig(filename);
-        puzzleSolver = new Solver();
+        //every solution jumps every green frog, so the first one found is as short as any
+        puzzleSolver = new DepthFirstSolver(DepthFirstSolver.MoveOrder.MOST_REPLIES);
         this.initialR = -1;
         this.initialC = -1;
         this.secondR = -1;
         this.secondC = -1;
         this.filename = filename;
+        this.tablebase = openTablebase(filename);
+    }
+
+    /**
+     * Makes searches run on a background thread instead of the caller's. While one runs the observers
+     * get progress messages, and the result comes back through the usual update once it is found.
+     * Every observer call is made through the given executor.
+     * @param observerExecutor runs observer updates on the thread the view expects them on
+     */
+    public void searchInBackground(Executor observerExecutor){
+        this.observerExecutor = observerExecutor;
+        this.searchExecutor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "hoppers-search");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
      * Hint method. Shows the next step in the puzzle if there is a possible solution. If not,
-     * no change is made and the user is notified.
+     * no change is made and the user is notified, straight away if the board can be proven
+     * unsolvable. When searching in the background the hint is shown once the search finishes.
      */
     public void hint(){
-        Configuration[] path = puzzleSolver.getSolution(currentConfig).toArray(new Configuration[0]);
-        if (path.length == 0){
+        abandonSearch();
+        if (currentConfig.isSolution()){
+            this.gameState = GameState.WON;
+            alertObservers(HoppersModel.STATE_MSGS.get(this.gameState));
+            return;
+        }
+        if (currentConfig.isDead()){
+            showHint(null);
+            return;
+        }
+        if (searchExecutor == null || isKnown(currentConfig)){
+            showHint(nextStep(currentConfig));
+        } else {
+            startSearch(currentConfig, this::showHint);
+        }
+    }
+
+    /**
+     * moves to the next step of a hint, or reports that there is none
+     * @param nextStep the next config on a solution, or null if there is no solution
+     */
+    private void showHint(HoppersConfig nextStep){
+        if (nextStep == null){
             this.gameState = GameState.LOST;
         } else{
-            Configuration nextStep = path[1];
-            currentConfig = (HoppersConfig) nextStep;
+            setCurrentConfig(nextStep);
             if (currentConfig.isSolution()){
                 this.gameState = GameState.WON;
             } else{
@@ -94,6 +183,205 @@ public class HoppersModel {
         alertObservers(HoppersModel.STATE_MSGS.get(this.gameState));
     }
 
+    /**
+     * stops the running background search, if there is one, and tells the observers
+     */
+    public void cancelSearch(){
+        if (search != null){
+            abandonSearch();
+            this.gameState = GameState.CANCELLED;
+            alertObservers(HoppersModel.STATE_MSGS.get(this.gameState));
+        }
+    }
+
+    /**
+     * checks if a background search is running
+     * @return true or false
+     */
+    public boolean isSearching(){
+        return search != null;
+    }
+
+    /**
+     * stops background searching for good, for when the view is closed
+     */
+    public void shutdown(){
+        abandonSearch();
+        if (searchExecutor != null){
+            searchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Searches from a config on the background thread. The solver checks for interrupts as it goes,
+     * so a search that is abandoned stops soon after, and its result is dropped if it was already
+     * on its way. A search that throws is reported to the observers the same way, unless it had
+     * already been abandoned, and the board is left as it was.
+     * @param config the config to search from
+     * @param onResult gets the next step from the config, or null if it has no solution
+     */
+    private void startSearch(HoppersConfig config, Consumer<HoppersConfig> onResult){
+        int generation = ++searchGeneration;
+        DepthFirstSolver solver = new DepthFirstSolver(DepthFirstSolver.MoveOrder.MOST_REPLIES);
+        //the search thread has the memo to itself until its result is handed back
+        StateStore memo = takeDeadStates();
+        solver.setDeadStates(memo);
+        solver.setProgressListener((depth, configs, uniqueConfigs) -> observerExecutor.execute(() -> {
+            if (generation == searchGeneration){
+                alertObservers("Searching... depth " + depth + ", " + uniqueConfigs + " configs explored");
+            }
+        }));
+        search = searchExecutor.submit(() -> {
+            try {
+                Collection<Configuration> path = solver.getSolution(config);
+                observerExecutor.execute(() -> {
+                    if (generation == searchGeneration){
+                        search = null;
+                        deadStates = memo;
+                        recordPath(config, path);
+                        onResult.accept(knownStep(config));
+                    }
+                });
+            } catch (CancellationException e) {
+                //abandoned for a newer search, nothing is waiting for the result
+            } catch (RuntimeException | Error e) {
+                observerExecutor.execute(() -> {
+                    if (generation == searchGeneration){
+                        search = null;
+                        this.gameState = GameState.SEARCH_FAILED;
+                        alertObservers(HoppersModel.STATE_MSGS.get(this.gameState) + " " + e);
+                    }
+                });
+            }
+        });
+        this.gameState = GameState.SEARCHING;
+        alertObservers(HoppersModel.STATE_MSGS.get(this.gameState));
+    }
+
+    /**
+     * stops the running background search without telling the observers, and makes sure nothing
+     * it already found is used
+     */
+    private void abandonSearch(){
+        searchGeneration += 1;
+        if (search != null){
+            search.cancel(true);
+            search = null;
+        }
+    }
+
+    /**
+     * finds the next step towards a solution from a config. Earlier searches are reused, so
+     * following a hint, moving onto a path a search has found, or moving into a config a search
+     * has proven dead is answered without searching again. Searches also start from the dead
+     * configs the earlier ones proved, so they do not search those again either.
+     * @param config a config that is not solved yet
+     * @return the next config on a shortest solution, or null if there is no solution
+     */
+    private HoppersConfig nextStep(HoppersConfig config){
+        if (!isKnown(config)){
+            StateStore memo = takeDeadStates();
+            puzzleSolver.setDeadStates(memo);
+            try {
+                recordPath(config, puzzleSolver.getSolution(config));
+            } finally {
+                puzzleSolver.setDeadStates(null);
+                deadStates = memo;
+            }
+        }
+        return knownStep(config);
+    }
+
+    /**
+     * takes the memo of dead configs for a search to use, making it if there is none yet. Until
+     * it is put back the model does not look at it, so a search on another thread can fill it.
+     * @return the memo
+     */
+    private StateStore takeDeadStates(){
+        StateStore memo = deadStates != null ? deadStates : new HeapStateStore(currentConfig.encodedLength());
+        deadStates = null;
+        return memo;
+    }
+
+    /**
+     * checks if a search has proven a config dead
+     * @param config the config
+     * @return true if it is in the memo of dead configs
+     */
+    private boolean isProvenDead(HoppersConfig config){
+        if (deadStates == null){
+            return false;
+        }
+        long[] state = new long[config.encodedLength()];
+        config.encode(state, 0);
+        return deadStates.find(state, 0) >= 0;
+    }
+
+    /**
+     * checks if the next step from a config is known without searching
+     * @param config a config that is not solved yet
+     * @return true if the tablebase or an earlier search has the answer
+     */
+    private boolean isKnown(HoppersConfig config){
+        return (tablebase != null && tablebase.contains(config)) || bestNext.containsKey(config)
+                || deadConfigs.contains(config) || isProvenDead(config);
+    }
+
+    /**
+     * gets the next step from a config that {@link #isKnown(HoppersConfig)}
+     * @param config the config
+     * @return the next config on a shortest solution, or null if there is no solution
+     */
+    private HoppersConfig knownStep(HoppersConfig config){
+        if (tablebase != null && tablebase.contains(config)){
+            return tablebase.bestMove(config);
+        }
+        return bestNext.get(config);
+    }
+
+    /**
+     * remembers what a search from a config found
+     * @param config the config searched from
+     * @param solution the path the search found, empty if there is no solution
+     */
+    private void recordPath(HoppersConfig config, Collection<Configuration> solution){
+        Configuration[] path = solution.toArray(new Configuration[0]);
+        if (path.length == 0){
+            deadConfigs.add(config);
+            return;
+        }
+        //every config on the path is solved by the rest of the path
+        for (int step = 0; step < path.length - 1; step++){
+            bestNext.put((HoppersConfig) path[step], (HoppersConfig) path[step + 1]);
+        }
+    }
+
+    /**
+     * opens the tablebase of a puzzle file. A damaged tablebase is treated the same as a missing
+     * one, since the model can always fall back to searching
+     * @param filename the puzzle file
+     * @return the tablebase, or null if there is no usable one
+     */
+    private static HoppersTablebase openTablebase(String filename){
+        try {
+            return HoppersTablebase.open(filename);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * forgets everything earlier searches found, for when a puzzle is loaded or reset
+     */
+    private void clearSearchCache(){
+        bestNext.clear();
+        deadConfigs.clear();
+        if (deadStates != null){
+            deadStates.close();
+            deadStates = null;
+        }
+    }
+
     /**
      * Load method. Takes in the user given filename and path and sets the current config to be the newly
      * generated config.
@@ -101,8 +389,11 @@ public class HoppersModel {
      */
     public void load(String filename){
         try{
-            currentConfig = new HoppersConfig(filename);
+            setCurrentConfig(new HoppersConfig(filename));
+            abandonSearch();
             this.filename = filename;
+            this.tablebase = openTablebase(filename);
+            clearSearchCache();
             this.gameState = GameState.LOAD;
             alertObservers(HoppersModel.STATE_MSGS.get(this.gameState));
         } catch (IOException e) {
@@ -117,7 +408,9 @@ public class HoppersModel {
      * @throws IOException
      */
     public void reset() throws IOException {
-        currentConfig = new HoppersConfig(this.filename);
+        setCurrentConfig(new HoppersConfig(this.filename));
+        abandonSearch();
+        clearSearchCache();
         this.initialR = -1;
         this.initialC = -1;
         this.gameState = GameState.RESET;
@@ -127,75 +420,50 @@ public class HoppersModel {
     /**
      * second part of the select method. Finds what possible moves there are for the initial
      * set of coordinates. If where the user wishes to miss the frog is part of these moves, the piece
-     * is moved and the configuration is updated.
+     * is moved and the configuration is updated. A move into a board that can be proven unsolvable
+     * is reported as lost straight away, without searching.
      * @param r original row
      * @param c original column
      * @param r2 row to be moved to
      * @param c2 column to be moved to
      */
     public void move(int r, int c, int r2, int c2){
-        List<Coordinates> possibleMoves = currentConfig.possibleMoves(r,c);
-        Coordinates newMove = new Coordinates(r2, c2);
-        if (possibleMoves.contains(newMove)){
-            if (r2 < r){
-                if (c2 < c){
-                    currentConfig.getGraph()[r-1][c-1] = '.';
-                    currentConfig.getGraph()[r2][c2] = currentConfig.getGraph()[r][c];
-                    currentConfig.getGraph()[r][c] = '.';
-                } else if (c2 == c){
-                    currentConfig.getGraph()[r-2][c] = '.';
-                    currentConfig.getGraph()[r2][c2] = currentConfig.getGraph()[r][c];
-                    currentConfig.getGraph()[r][c] = '.';
-                } else{
-                    currentConfig.getGraph()[r-1][c+1] = '.';
-                    currentConfig.getGraph()[r2][c2] = currentConfig.getGraph()[r][c];
-                    currentConfig.getGraph()[r][c] = '.';
-                }
-            } else if (r2 == r){
-                if (c2 < c){
-                    currentConfig.getGraph()[r][c-2] = '.';
-                    currentConfig.getGraph()[r2][c2] = currentConfig.getGraph()[r][c];
-                    currentConfig.getGraph()[r][c] = '.';
-                } else{
-                    currentConfig.getGraph()[r][c+2] = '.';
-                    currentConfig.getGraph()[r2][c2] = currentConfig.getGraph()[r][c];
-                    currentConfig.getGraph()[r][c] = '.';
-                }
-            } else {
-                if (c2 < c){
-                    currentConfig.getGraph()[r+1][c-1] = '.';
-                    currentConfig.getGraph()[r2][c2] = currentConfig.getGraph()[r][c];
-                    currentConfig.getGraph()[r][c] = '.';
-                } else if (c2 == c){
-                    currentConfig.getGraph()[r+2][c] = '.';
-                    currentConfig.getGraph()[r2][c2] = currentConfig.getGraph()[r][c];
-                    currentConfig.getGraph()[r][c] = '.';
-                } else{
-                    currentConfig.getGraph()[r+1][c+1] = '.';
-                    currentConfig.getGraph()[r2][c2] = currentConfig.getGraph()[r][c];
-                    currentConfig.getGraph()[r][c] = '.';
-                }
-
-            }
+        HoppersConfig next = currentConfig.jump(r, c, r2, c2);
+        if (next != null){
+            setCurrentConfig(next);
+            abandonSearch();
+            initialR = -1;
+            initialC = -1;
             if (currentConfig.isSolution()){
                 gameState = GameState.WON;
+                alertObservers(HoppersModel.STATE_MSGS.get(gameState));
+            } else if (currentConfig.isDead()){
+                showSolvable(null);
+            } else if (searchExecutor != null && !isKnown(currentConfig)){
+                startSearch(currentConfig, this::showSolvable);
             } else{
-                Configuration[] path = puzzleSolver.getSolution(currentConfig).toArray(new Configuration[0]);
-                if (path.length == 0){
-                    gameState = GameState.LOST;
-                } else{
-                    gameState = GameState.ONGOING;
-                }
+                showSolvable(nextStep(currentConfig));
             }
-            initialR = -1;
-            initialC = -1;
-            alertObservers(HoppersModel.STATE_MSGS.get(gameState));
         } else{
             initialR = -1;
             initialC = -1;
             alertObservers("Invalid move. Pick a frog and try again.");
         }
     }
+
+    /**
+     * reports whether the puzzle can still be solved after a move
+     * @param nextStep the next config on a solution, or null if there is no solution
+     */
+    private void showSolvable(HoppersConfig nextStep){
+        if (nextStep == null){
+            gameState = GameState.LOST;
+        } else{
+            gameState = GameState.ONGOING;
+        }
+        alertObservers(HoppersModel.STATE_MSGS.get(gameState));
+    }
+
     public void select(int r, int c){
         if (this.initialR != -1 && this.initialC != -1){
             secondR = r;
@@ -243,6 +511,14 @@ public class HoppersModel {
     public char[][] getGraph(){
         return currentConfig.getGraph();
     }
+    /**
+     * gets the cells whose contents changed since the observers were last updated, so a view
+     * only has to redraw those. Only valid while the observers are being updated.
+     * @return the changed cells
+     */
+    public List<Coordinates> getChangedCells(){
+        return Collections.unmodifiableList(changedCells);
+    }
     public HoppersConfig getCurrentConfig(){
         return currentConfig;
     }
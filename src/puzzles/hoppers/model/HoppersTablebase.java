@@ -0,0 +1,280 @@
+package puzzles.hoppers.model;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.HeapStateStore;
+import puzzles.common.solver.StateStore;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Precomputed answers for one hoppers puzzle: every config reachable from the start, whether it
+ * can still be solved, and the next move on a solution if it can. It is built offline by
+ * {@link #build(String)} and saved next to the puzzle file, and after that hints and the won/lost
+ * check are a single hash table lookup in a memory mapped file, no matter how hard the puzzle is.
+ * <p>
+ * File layout, big endian: a header of magic number, CRC32 and length of the puzzle file,
+ * encoded state length, number of states and number of hash slots, then the encoded states,
+ * then each state's next move (a state id, {@link #GOAL} or {@link #DEAD}), then an open
+ * addressing table of state ids plus one.
+ * @author Christopher Rose
+ */
+public class HoppersTablebase {
+    /** file name extension added to the puzzle file's name */
+    public static final String EXTENSION = ".tb";
+    private static final int MAGIC = 0x48544231;
+    private static final int HEADER_BYTES = 4 + 8 + 8 + 4 + 4 + 4;
+    /** next move of a config that is already solved */
+    private static final int GOAL = -2;
+    /** next move of a config that cannot be solved */
+    private static final int DEAD = -1;
+
+    private final HoppersConfig start;
+    private final MappedByteBuffer table;
+    private final int width;
+    private final int count;
+    private final int slotMask;
+    private final int nextStart;
+    private final int slotsStart;
+
+    /**
+     * makes a tablebase over a mapped file whose header has been checked
+     * @param start the puzzle's start config, used to encode and decode configs
+     * @param table the mapped file
+     */
+    private HoppersTablebase(HoppersConfig start, MappedByteBuffer table){
+        this.start = start;
+        this.table = table;
+        this.width = table.getInt(20);
+        this.count = table.getInt(24);
+        this.slotMask = table.getInt(28) - 1;
+        this.nextStart = HEADER_BYTES + count * width * 8;
+        this.slotsStart = nextStart + count * 4;
+    }
+
+    /**
+     * gets the tablebase file that belongs to a puzzle file
+     * @param puzzleFile the puzzle file
+     * @return path of its tablebase
+     */
+    public static Path fileFor(String puzzleFile){
+        return Path.of(puzzleFile + EXTENSION);
+    }
+
+    /**
+     * opens the tablebase of a puzzle file if it has an up to date one
+     * @param puzzleFile the puzzle file
+     * @return the tablebase, or null if there is none or it was built from a different puzzle
+     * @throws IOException if a file cannot be read or the tablebase is damaged
+     */
+    public static HoppersTablebase open(String puzzleFile) throws IOException {
+        Path file = fileFor(puzzleFile);
+        if (!Files.isRegularFile(file)){
+            return null;
+        }
+        HoppersConfig start = new HoppersConfig(puzzleFile);
+        MappedByteBuffer table;
+        try (FileChannel channel = FileChannel.open(file)){
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE){
+                throw new IOException("Not a tablebase: " + file);
+            }
+            table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (table.getInt(0) != MAGIC){
+            throw new IOException("Not a tablebase: " + file);
+        }
+        int width = table.getInt(20);
+        int count = table.getInt(24);
+        int slots = table.getInt(28);
+        if (width < 1 || count < 0 || Integer.bitCount(slots) != 1 || slots <= count
+                || table.capacity() != HEADER_BYTES + (long) count * width * 8 + (long) count * 4 + (long) slots * 4){
+            throw new IOException("Damaged tablebase: " + file);
+        }
+        byte[] puzzle = Files.readAllBytes(Path.of(puzzleFile));
+        if (table.getLong(4) != checksum(puzzle) || table.getLong(12) != puzzle.length
+                || width != start.encodedLength()){
+            return null;
+        }
+        return new HoppersTablebase(start, table);
+    }
+
+    /**
+     * enumerates every config reachable from a puzzle's start, works out which ones can be solved
+     * and writes the tablebase next to the puzzle file
+     * @param puzzleFile the puzzle file
+     * @return number of configs in the tablebase
+     * @throws IOException if the puzzle cannot be read or the tablebase cannot be written
+     */
+    public static int build(String puzzleFile) throws IOException {
+        HoppersConfig start = new HoppersConfig(puzzleFile);
+        int width = start.encodedLength();
+        long[] state = new long[width];
+        try (StateStore store = new HeapStateStore(width)){
+            start.encode(state, 0);
+            store.add(state, 0, -1);
+            for (int id = 0; id < store.size(); id++){
+                store.get(id, state, 0);
+                for (Configuration nbr: start.decode(state, 0).getNeighbors()){
+                    ((HoppersConfig) nbr).encode(state, 0);
+                    store.add(state, 0, id);
+                }
+            }
+            int count = store.size();
+
+            //every jump removes a green frog, so a config's successors are all one layer deeper and
+            //were found after it; going through the ids backwards settles successors first
+            int[] next = new int[count];
+            for (int id = count - 1; id >= 0; id--){
+                store.get(id, state, 0);
+                Configuration config = start.decode(state, 0);
+                next[id] = config.isSolution() ? GOAL : DEAD;
+                for (Configuration nbr: config.getNeighbors()){
+                    ((HoppersConfig) nbr).encode(state, 0);
+                    int successor = store.find(state, 0);
+                    if (next[successor] != DEAD){
+                        next[id] = successor;
+                        break;
+                    }
+                }
+            }
+
+            int slots = Integer.highestOneBit(Math.max(1, count) * 2 - 1) * 2;
+            int[] table = new int[slots];
+            for (int id = 0; id < count; id++){
+                store.get(id, state, 0);
+                int slot = HeapStateStore.hash(state, 0, width) & (slots - 1);
+                while (table[slot] != 0){
+                    slot = (slot + 1) & (slots - 1);
+                }
+                table[slot] = id + 1;
+            }
+
+            byte[] puzzle = Files.readAllBytes(Path.of(puzzleFile));
+            Path file = fileFor(puzzleFile);
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))){
+                out.writeInt(MAGIC);
+                out.writeLong(checksum(puzzle));
+                out.writeLong(puzzle.length);
+                out.writeInt(width);
+                out.writeInt(count);
+                out.writeInt(slots);
+                for (int id = 0; id < count; id++){
+                    store.get(id, state, 0);
+                    for (long word: state){
+                        out.writeLong(word);
+                    }
+                }
+                for (int move: next){
+                    out.writeInt(move);
+                }
+                for (int slot: table){
+                    out.writeInt(slot);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            return count;
+        }
+    }
+
+    /**
+     * checks if a config is in the tablebase, which every config reachable from the start is
+     * @param config the config
+     * @return true or false
+     */
+    public boolean contains(HoppersConfig config){
+        return find(config) >= 0;
+    }
+
+    /**
+     * checks if a config can still be solved
+     * @param config a config in the tablebase
+     * @return true if it is solved or has a move towards a solution
+     */
+    public boolean isSolvable(HoppersConfig config){
+        int id = find(config);
+        return id >= 0 && table.getInt(nextStart + id * 4) != DEAD;
+    }
+
+    /**
+     * gets the next config on a shortest solution
+     * @param config a config in the tablebase
+     * @return the next config, or null if the config is solved, cannot be solved or is not in
+     * the tablebase
+     */
+    public HoppersConfig bestMove(HoppersConfig config){
+        int id = find(config);
+        if (id < 0){
+            return null;
+        }
+        int next = table.getInt(nextStart + id * 4);
+        return next < 0 ? null : decode(next);
+    }
+
+    /**
+     * gets the number of configs in the tablebase
+     * @return config count
+     */
+    public int size(){
+        return count;
+    }
+
+    /**
+     * looks a config up in the hash table
+     * @param config the config
+     * @return its id, or -1 if it is not in the tablebase
+     */
+    private int find(HoppersConfig config){
+        if (config.encodedLength() != width){
+            return -1;
+        }
+        long[] state = new long[width];
+        config.encode(state, 0);
+        int slot = HeapStateStore.hash(state, 0, width) & slotMask;
+        int stored = table.getInt(slotsStart + slot * 4);
+        while (stored != 0){
+            int base = HEADER_BYTES + (stored - 1) * width * 8;
+            boolean same = true;
+            for (int i = 0; i < width && same; i++){
+                same = table.getLong(base + i * 8) == state[i];
+            }
+            if (same){
+                return stored - 1;
+            }
+            slot = (slot + 1) & slotMask;
+            stored = table.getInt(slotsStart + slot * 4);
+        }
+        return -1;
+    }
+
+    /**
+     * reads a config out of the tablebase
+     * @param id the config's id
+     * @return the config
+     */
+    private HoppersConfig decode(int id){
+        long[] state = new long[width];
+        int base = HEADER_BYTES + id * width * 8;
+        for (int i = 0; i < width; i++){
+            state[i] = table.getLong(base + i * 8);
+        }
+        return (HoppersConfig) start.decode(state, 0);
+    }
+
+    /**
+     * identifies a puzzle file's contents
+     * @param puzzle the file's bytes
+     * @return CRC32 of the bytes
+     */
+    private static long checksum(byte[] puzzle){
+        CRC32 crc = new CRC32();
+        crc.update(puzzle);
+        return crc.getValue();
+    }
+}
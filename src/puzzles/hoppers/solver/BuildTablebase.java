@@ -0,0 +1,47 @@
+package puzzles.hoppers.solver;
+
+import puzzles.hoppers.model.HoppersTablebase;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Offline command that builds the tablebase for hoppers puzzles. Each argument is a puzzle file,
+ * or a directory whose .txt puzzle files are all built. The tablebases are written next to the
+ * puzzles, where {@link Hoppers}, the model and the GUIs pick them up.
+ * @author Christopher Rose
+ */
+public class BuildTablebase {
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java BuildTablebase puzzle-file-or-directory...");
+            return;
+        }
+        for (String arg: args) {
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path)) {
+                try (DirectoryStream<Path> puzzles = Files.newDirectoryStream(path, "*.txt")) {
+                    for (Path puzzle: puzzles) {
+                        build(puzzle.toString());
+                    }
+                }
+            } else {
+                build(arg);
+            }
+        }
+    }
+
+    /**
+     * builds and reports one tablebase
+     * @param puzzleFile the puzzle file
+     * @throws IOException if the puzzle cannot be read or the tablebase cannot be written
+     */
+    private static void build(String puzzleFile) throws IOException {
+        long begin = System.nanoTime();
+        int states = HoppersTablebase.build(puzzleFile);
+        long millis = (System.nanoTime() - begin) / 1_000_000;
+        System.out.println(HoppersTablebase.fileFor(puzzleFile) + ": " + states + " configs, " + millis + " ms");
+    }
+}
@@ -1,31 +1,87 @@
 package puzzles.hoppers.solver;
 
+import puzzles.common.solver.BatchRunner;
 import puzzles.common.solver.Configuration;
 import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverOptions;
 import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersTablebase;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Hoppers {
     public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
-            System.out.println("Usage: java Hoppers filename");
-        } else{
-            System.out.println("File: " + args[0]);
-            HoppersConfig startConfig = new HoppersConfig(args[0]);
-            System.out.println(startConfig.toString());
-            Solver puzzleSolver = new Solver();
-            Configuration[] path = puzzleSolver.getSolution(startConfig).toArray(new Configuration[0]);
-            System.out.println("Total Configs: " + puzzleSolver.getConfigs());
-            System.out.println("Unique Configs: " + puzzleSolver.getUniqueConfigs());
-            if (path.length == 0){
-                System.out.println("No solution");
-            } else {
-                for (int step = 0; step < path.length; step++){
-                    System.out.println("Step " + step + ": ");
-                    System.out.println(path[step].toString());
-                }
+        SolverOptions options;
+        List<String> files = List.of();
+        try {
+            options = SolverOptions.parse(args);
+            files = BatchRunner.expandFiles(options.getArguments());
+            files.removeIf(file -> file.endsWith(HoppersTablebase.EXTENSION));
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            options = null;
+        }
+        if (options == null || files.isEmpty()) {
+            System.out.println("Usage: java Hoppers filename|directory|pattern... " + SolverOptions.USAGE);
+        } else if (files.size() == 1){
+            solve(files.get(0), options, System.out);
+        } else {
+            SolverOptions batchOptions = options;
+            List<BatchRunner.Job> jobs = new ArrayList<>();
+            for (String file: files){
+                jobs.add(out -> solve(file, batchOptions, out));
             }
+            new BatchRunner(options.getJobs()).run(jobs, System.out);
+        }
+    }
+
+    /**
+     * solves one puzzle file and prints the start, the config counts and the path
+     * @param filename the puzzle file
+     * @param options the solver options
+     * @param out where to print
+     * @throws IOException if the puzzle cannot be read
+     */
+    public static void solve(String filename, SolverOptions options, PrintStream out) throws IOException {
+        out.println("File: " + filename);
+        HoppersConfig startConfig = new HoppersConfig(filename);
+        out.println(startConfig.toString());
+        Solver puzzleSolver = options.createSolver(startConfig);
+        HoppersTablebase tablebase = options.useTablebase() ? openTablebase(filename, out) : null;
+        if (tablebase != null){
+            puzzleSolver = new TablebaseSolver(tablebase, puzzleSolver);
+        }
+        puzzleSolver = options.withCache(puzzleSolver, "hoppers" + System.lineSeparator() + startConfig);
+        Configuration[] path = puzzleSolver.getSolution(startConfig).toArray(new Configuration[0]);
+        out.println("Total Configs: " + puzzleSolver.getConfigs());
+        out.println("Unique Configs: " + puzzleSolver.getUniqueConfigs());
+        if (path.length == 0){
+            out.println("No solution");
+        } else {
+            for (int step = 0; step < path.length; step++){
+                out.println("Step " + step + ": ");
+                out.println(path[step].toString());
+            }
+        }
+        options.printStats(puzzleSolver, out);
+    }
+
+    /**
+     * opens the puzzle's tablebase, treating a damaged one like a missing one so the puzzle is
+     * still solved by searching
+     * @param filename the puzzle file
+     * @param out where to say why the tablebase was not used
+     * @return the tablebase, or null if there is no usable one
+     */
+    private static HoppersTablebase openTablebase(String filename, PrintStream out){
+        try {
+            return HoppersTablebase.open(filename);
+        } catch (IOException e) {
+            out.println("Tablebase not used: " + e.getMessage());
+            return null;
         }
     }
 }
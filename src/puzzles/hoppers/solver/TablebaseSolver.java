@@ -0,0 +1,64 @@
+package puzzles.hoppers.solver;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.hoppers.model.HoppersConfig;
+import puzzles.hoppers.model.HoppersTablebase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Solver that reads the solution out of a hoppers tablebase one move at a time instead of
+ * searching. Configs that are not in the tablebase are handed to another solver. The counters
+ * hold the number of lookups made, and there are no statistics for them.
+ * @author Christopher Rose
+ */
+public class TablebaseSolver extends Solver {
+    private final HoppersTablebase tablebase;
+    private final Solver fallback;
+
+    /**
+     * TablebaseSolver constructor
+     * @param tablebase tablebase of the puzzle being solved
+     * @param fallback solver for configs the tablebase does not have
+     */
+    public TablebaseSolver(HoppersTablebase tablebase, Solver fallback){
+        super();
+        this.tablebase = tablebase;
+        this.fallback = fallback;
+    }
+
+    /**
+     * follows the best moves stored in the tablebase from the start to the goal
+     * @param start the starting configuration
+     * @return the shortest path to the solution, or an empty list if there is none
+     */
+    @Override
+    public Collection<Configuration> getSolution(Configuration start){
+        if (!(start instanceof HoppersConfig) || !tablebase.contains((HoppersConfig) start)){
+            Collection<Configuration> path = fallback.getSolution(start);
+            configs = fallback.getConfigs();
+            uniqueConfigs = fallback.getUniqueConfigs();
+            stats = fallback.getStats();
+            return path;
+        }
+        stats = null;
+        List<Configuration> path = new ArrayList<>();
+        HoppersConfig current = (HoppersConfig) start;
+        path.add(current);
+        configs = 1;
+        while (!current.isSolution()){
+            current = tablebase.bestMove(current);
+            if (current == null){
+                path.clear();
+                break;
+            }
+            configs += 1;
+            path.add(current);
+        }
+        uniqueConfigs = configs;
+        return path;
+    }
+}
@@ -1,32 +1,67 @@
 package puzzles.strings;
 
+import puzzles.common.solver.BatchRunner;
 import puzzles.common.solver.Configuration;
 import puzzles.common.solver.Solver;
+import puzzles.common.solver.SolverOptions;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Main class for the Strings puzzle. Runs the puzzle solver using a starting StringConfig
+ * Main class for the Strings puzzle. Runs the puzzle solver using a starting StringConfig, or
+ * solves a batch of puzzles when given more than one start and finish pair
  * @author Christopher Rose
  */
 
 public class Strings {
     public static void main(String[] args) {
-        if (args.length < 2) {
-            System.out.println(("Usage: java Strings start finish"));
+        SolverOptions options;
+        try {
+            options = SolverOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            options = null;
+        }
+        if (options == null || options.getArguments().length < 2
+                || options.getArguments().length > 2 && options.getArguments().length % 2 != 0) {
+            System.out.println(("Usage: java Strings start finish [start finish]... " + SolverOptions.USAGE));
+        } else if (options.getArguments().length == 2) {
+            solve(options.getArguments(), options, System.out);
         } else {
-            System.out.println("Start: " + args[0] + ", End: " + args[1]);
-            Configuration startString = new StringsConfig(args[0], args[1]);
-            Solver puzzleSolver = new Solver();
-            Configuration[] path = puzzleSolver.getSolution(startString).toArray(new Configuration[0]);
-            System.out.println("Total Configs: " + puzzleSolver.getConfigs());
-            System.out.println("Unique Configs: " + puzzleSolver.getUniqueConfigs());
-            if (path.length == 0){
-                System.out.println("No solution");
-            } else {
-                for (int step = 0; step < path.length; step++){
-                    System.out.println("Step " + step + ": " + path[step].toString());
-                }
+            args = options.getArguments();
+            SolverOptions batchOptions = options;
+            List<BatchRunner.Job> jobs = new ArrayList<>();
+            for (int i = 0; i < args.length; i += 2) {
+                String[] puzzle = {args[i], args[i + 1]};
+                jobs.add(out -> solve(puzzle, batchOptions, out));
             }
+            new BatchRunner(options.getJobs()).run(jobs, System.out);
         }
     }
-}
 
+    /**
+     * solves one puzzle and prints the config counts and the path
+     * @param args start and finish
+     * @param options the solver options
+     * @param out where to print
+     */
+    public static void solve(String[] args, SolverOptions options, PrintStream out) {
+        out.println("Start: " + args[0] + ", End: " + args[1]);
+        Configuration startString = new StringsConfig(args[0], args[1]);
+        Solver puzzleSolver = options.withCache(options.createSolver(startString),
+                "strings " + args[0] + " " + args[1]);
+        Configuration[] path = puzzleSolver.getSolution(startString).toArray(new Configuration[0]);
+        out.println("Total Configs: " + puzzleSolver.getConfigs());
+        out.println("Unique Configs: " + puzzleSolver.getUniqueConfigs());
+        if (path.length == 0){
+            out.println("No solution");
+        } else {
+            for (int step = 0; step < path.length; step++){
+                out.println("Step " + step + ": " + path[step].toString());
+            }
+        }
+        options.printStats(puzzleSolver, out);
+    }
+}
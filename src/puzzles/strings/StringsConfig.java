@@ -1,6 +1,11 @@
 package puzzles.strings;
 
+import puzzles.common.solver.BidirectionalConfiguration;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.EncodableConfiguration;
+import puzzles.common.solver.HeuristicConfiguration;
+import puzzles.common.solver.NeighborSink;
+import puzzles.common.solver.StreamingConfiguration;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -11,7 +16,8 @@ import java.util.List;
  * @author Christopher Rose
  */
 
-public class StringsConfig implements Configuration {
+public class StringsConfig implements BidirectionalConfiguration, HeuristicConfiguration,
+        EncodableConfiguration, StreamingConfiguration {
     private String start;
     private String finish;
 
@@ -44,26 +50,183 @@ public class StringsConfig implements Configuration {
     @Override
     public Collection<Configuration> getNeighbors() {
         List<Configuration> neighbors = new ArrayList<>();
-        for (int c = 0; c < start.length(); c++) {
-            StringBuilder nbr1 = new StringBuilder(start);
-            StringBuilder nbr2 = new StringBuilder(start);
-            if (start.charAt(c) == 'A') {
-                char ch = start.charAt(c);
-                nbr1.setCharAt(c, 'Z');
-                nbr2.setCharAt(c, (char) (ch + 1));
-            } else if (start.charAt(c) == 'Z') {
-                char ch = start.charAt(c);
-                nbr1.setCharAt(c, (char) (ch - 1));
-                nbr2.setCharAt(c, 'A');
-            } else {
-                char ch = start.charAt(c);
-                nbr1.setCharAt(c, (char) (ch - 1));
-                nbr2.setCharAt(c, (char) (ch + 1));
+        forEachNeighbor(neighbors::add);
+        return neighbors;
+    }
+
+    /**
+     * passes every neighbor to a sink: for each letter, the letter before it and then the letter
+     * after it, wrapping around between A and Z. Each neighbor's encoding is offered first, made
+     * by changing one 16 bit lane of this string's encoding, so a neighbor the sink turns down
+     * never becomes a String.
+     *
+     * @param sink receives the neighbors
+     */
+    @Override
+    public void forEachNeighbor(NeighborSink sink) {
+        long[] encoding = new long[encodedLength()];
+        encode(encoding, 0);
+        char[] letters = start.toCharArray();
+        for (int c = 0; c < letters.length; c++) {
+            char ch = letters[c];
+            if (!offerLetter(sink, encoding, letters, c, before(ch))
+                    || !offerLetter(sink, encoding, letters, c, after(ch))) {
+                return;
             }
-            neighbors.add(new StringsConfig(nbr1.toString(), finish));
-            neighbors.add(new StringsConfig(nbr2.toString(), finish));
+            letters[c] = ch;
+            encoding[c / 4] = setLane(encoding[c / 4], c, ch);
         }
-        return neighbors;
+    }
+
+    /**
+     * gets the letter a letter moves to going back, wrapping from A to Z
+     *
+     * @param ch the letter
+     * @return the letter before it
+     */
+    private static char before(char ch) {
+        return ch == 'A' ? 'Z' : (char) (ch - 1);
+    }
+
+    /**
+     * gets the letter a letter moves to going forward, wrapping from Z to A
+     *
+     * @param ch the letter
+     * @return the letter after it
+     */
+    private static char after(char ch) {
+        return ch == 'Z' ? 'A' : (char) (ch + 1);
+    }
+
+    /**
+     * offers the neighbor with one letter changed, and passes it on if the sink wants it
+     *
+     * @param sink     receives the neighbor
+     * @param encoding this string's encoding, with the lane of the letter changed on return
+     * @param letters  this string's letters, with the letter changed on return
+     * @param c        index of the letter to change
+     * @param ch       the new letter
+     * @return false if the sink asked to stop
+     */
+    private boolean offerLetter(NeighborSink sink, long[] encoding, char[] letters, int c, char ch) {
+        encoding[c / 4] = setLane(encoding[c / 4], c, ch);
+        letters[c] = ch;
+        return !sink.offer(encoding, 0) || sink.accept(new StringsConfig(new String(letters), finish));
+    }
+
+    /**
+     * puts a letter into its 16 bit lane of an encoded long
+     *
+     * @param word the long holding the letter
+     * @param c    index of the letter in the string
+     * @param ch   the letter
+     * @return the changed long
+     */
+    private static long setLane(long word, int c, char ch) {
+        int shift = 16 * (c % 4);
+        return (word & ~(0xFFFFL << shift)) | ((long) ch << shift);
+    }
+
+    /**
+     * gets the goal string as a configuration
+     *
+     * @return config holding the finish string
+     */
+    @Override
+    public Configuration getGoal() {
+        return new StringsConfig(finish, finish);
+    }
+
+    /**
+     * finds the strings that have this one as a neighbor. For a letter from A to Z those are the
+     * letters either side of it, wrapping around, but a character outside A-Z can only be reached
+     * from the character next to it and never from a letter that wraps, so each candidate is
+     * checked against the moves it really makes. The only candidates are this character's own
+     * neighbors and the characters just before and after it.
+     *
+     * @return list of all the reverse neighbors
+     */
+    @Override
+    public Collection<Configuration> getPredecessors() {
+        List<Configuration> predecessors = new ArrayList<>();
+        char[] letters = start.toCharArray();
+        for (int c = 0; c < letters.length; c++) {
+            char ch = letters[c];
+            char[] candidates = {before(ch), after(ch), (char) (ch - 1), (char) (ch + 1)};
+            for (int i = 0; i < candidates.length; i++) {
+                char from = candidates[i];
+                boolean repeated = i >= 2 && (from == candidates[0] || from == candidates[1]);
+                if (!repeated && (before(from) == ch || after(from) == ch)) {
+                    letters[c] = from;
+                    predecessors.add(new StringsConfig(new String(letters), finish));
+                }
+            }
+            letters[c] = ch;
+        }
+        return predecessors;
+    }
+
+    /**
+     * adds up how far each letter is from its goal letter, going around the alphabet whichever
+     * way is shorter. Each move changes one letter by one, so this never overestimates. Characters
+     * outside A-Z count as zero.
+     *
+     * @return lower bound on the moves left
+     */
+    @Override
+    public int estimate() {
+        int moves = 0;
+        for (int c = 0; c < start.length() && c < finish.length(); c++) {
+            char from = start.charAt(c);
+            char to = finish.charAt(c);
+            if (from >= 'A' && from <= 'Z' && to >= 'A' && to <= 'Z') {
+                int distance = Math.abs(from - to);
+                moves += Math.min(distance, 26 - distance);
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * the characters are packed four to a long, 16 bits each
+     *
+     * @return number of longs needed for the current string
+     */
+    @Override
+    public int encodedLength() {
+        return (start.length() + 3) / 4;
+    }
+
+    /**
+     * packs the characters of the current string into longs
+     *
+     * @param dest   array to write into
+     * @param offset index of the first long to write
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        for (int i = 0; i < encodedLength(); i++) {
+            dest[offset + i] = 0;
+        }
+        for (int c = 0; c < start.length(); c++) {
+            dest[offset + c / 4] |= (long) start.charAt(c) << (16 * (c % 4));
+        }
+    }
+
+    /**
+     * unpacks a string of the same length as this one, with the same goal
+     *
+     * @param src    array holding the encoding
+     * @param offset index of the first long of the encoding
+     * @return decoded string config
+     */
+    @Override
+    public Configuration decode(long[] src, int offset) {
+        char[] letters = new char[start.length()];
+        for (int c = 0; c < letters.length; c++) {
+            letters[c] = (char) (src[offset + c / 4] >>> (16 * (c % 4)));
+        }
+        return new StringsConfig(new String(letters), finish);
     }
 
     /**